@@ -0,0 +1,75 @@
+package com.example.android.localnews;
+
+import android.content.Context;
+import android.os.Debug;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.*;
+
+/**
+ * Counts the objects allocated while binding recycled rows, the way a ListView does when
+ * the user scrolls through a long list.
+ */
+@RunWith(AndroidJUnit4.class)
+public class NewsArticleAdapterBindBenchmark {
+
+    //as many articles as the adapter's window holds in memory, so every bind finds its article
+    private static final int ARTICLES = ArticleWindow.CHUNK_SIZE * ArticleWindow.MAX_CHUNKS;
+    private static final int RECYCLED_ROWS = 8;
+
+    @Test
+    public void recycledBind_allocatesNothing() {
+        final Context context = InstrumentationRegistry.getTargetContext();
+        final int[] allocations = new int[1];
+
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                ArrayList<NewsArticle> articles = new ArrayList<>();
+                for (int i = 0; i < ARTICLES; i++) {
+                    articles.add(new NewsArticle("Title " + i, "Author " + i, "Section " + (i % 10),
+                            "https://www.theguardian.com/" + i, 1534774325000L - i * 3600000L));
+                }
+                NewsArticleAdapter adapter = new NewsArticleAdapter(context, articles);
+                FrameLayout parent = new FrameLayout(context);
+
+                //the rows a ListView would keep in its recycler while scrolling
+                View[] rows = new View[RECYCLED_ROWS];
+                for (int i = 0; i < RECYCLED_ROWS; i++) {
+                    rows[i] = adapter.getView(i, null, parent);
+                }
+
+                //warm up so one-off allocations aren't counted
+                bindAll(adapter, rows, parent);
+
+                Debug.resetThreadAllocCount();
+                Debug.startAllocCounting();
+                bindAll(adapter, rows, parent);
+                Debug.stopAllocCounting();
+                allocations[0] = Debug.getThreadAllocCount();
+            }
+        });
+
+        Log.i("BindBenchmark", allocations[0] + " allocations over " + ARTICLES + " binds");
+        assertEquals("allocations over " + ARTICLES + " binds", 0, allocations[0]);
+    }
+
+    //bind every article into the recycled rows in turn, always rebinding a row to a new article
+    private static void bindAll(NewsArticleAdapter adapter, View[] rows, FrameLayout parent) {
+        for (int position = RECYCLED_ROWS; position < adapter.getCount(); position++) {
+            adapter.getView(position, rows[position % RECYCLED_ROWS], parent);
+        }
+        for (int position = 0; position < RECYCLED_ROWS; position++) {
+            adapter.getView(position, rows[(position + 1) % RECYCLED_ROWS], parent);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.android.localnews;
+
+import android.os.Debug;
+import android.os.SystemClock;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compares the time and allocations of parsing publication dates with Iso8601 against the
+ * SimpleDateFormat path the parser used before, on the device's runtime.
+ */
+@RunWith(AndroidJUnit4.class)
+public class TimestampCodecBenchmark {
+
+    private static final String TAG = "TimestampBenchmark";
+    private static final int TIMESTAMPS = 5000;
+    private static final int ROUNDS = 5;
+
+    @Test
+    public void iso8601_isCheaperThanSimpleDateFormat() throws Exception {
+        final String[] timestamps = new String[TIMESTAMPS];
+        for (int i = 0; i < TIMESTAMPS; i++) {
+            timestamps[i] = Iso8601.format(1534774325000L - i * 3607000L);
+        }
+
+        //warm up both paths
+        parseLegacy(timestamps);
+        parseIso8601(timestamps);
+
+        long legacyNanos = Long.MAX_VALUE;
+        long isoNanos = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = SystemClock.elapsedRealtimeNanos();
+            parseLegacy(timestamps);
+            legacyNanos = Math.min(legacyNanos, SystemClock.elapsedRealtimeNanos() - start);
+
+            start = SystemClock.elapsedRealtimeNanos();
+            parseIso8601(timestamps);
+            isoNanos = Math.min(isoNanos, SystemClock.elapsedRealtimeNanos() - start);
+        }
+
+        long legacyBytes = allocatedBytes(new Runnable() {
+            @Override
+            public void run() {
+                parseLegacy(timestamps);
+            }
+        });
+        long isoBytes = allocatedBytes(new Runnable() {
+            @Override
+            public void run() {
+                parseIso8601(timestamps);
+            }
+        });
+
+        Log.i(TAG, "SimpleDateFormat: " + legacyNanos / TIMESTAMPS + " ns/op, " + legacyBytes / TIMESTAMPS + " B/op");
+        Log.i(TAG, "Iso8601: " + isoNanos / TIMESTAMPS + " ns/op, " + isoBytes / TIMESTAMPS + " B/op");
+
+        assertEquals(0, isoBytes);
+        assertTrue(isoNanos < legacyNanos);
+    }
+
+    //the per article path used before Iso8601: a new SimpleDateFormat, a regex and a Date
+    private static long parseLegacy(String[] timestamps) {
+        long sum = 0;
+        for (String timestamp : timestamps) {
+            SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssZ");
+            try {
+                Date date = dateFormat.parse(timestamp.replaceAll("Z$", "+0000"));
+                sum += date.getTime();
+            } catch (ParseException e) {
+                fail(e.getMessage());
+            }
+        }
+        return sum;
+    }
+
+    private static long parseIso8601(String[] timestamps) {
+        long sum = 0;
+        for (String timestamp : timestamps) {
+            sum += Iso8601.parse(timestamp);
+        }
+        return sum;
+    }
+
+    private static long allocatedBytes(Runnable work) {
+        Debug.resetThreadAllocSize();
+        Debug.startAllocCounting();
+        work.run();
+        Debug.stopAllocCounting();
+        return Debug.getThreadAllocSize();
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.android.localnews;
+
+import android.app.LoaderManager;
+import android.content.Context;
+import android.content.Intent;
+import android.content.Loader;
+import android.net.Uri;
+import android.os.Bundle;
+import android.support.v7.app.AppCompatActivity;
+import android.view.Menu;
+import android.view.MenuItem;
+import android.view.View;
+import android.widget.ProgressBar;
+import android.widget.TextView;
+
+//in-app reader showing the body text of an article, from the body store when it was prefetched
+public class ArticleActivity extends AppCompatActivity implements LoaderManager.LoaderCallbacks<String> {
+
+    //the intent extras naming the article to show
+    private static final String EXTRA_URL = "com.example.android.localnews.extra.URL";
+    private static final String EXTRA_TITLE = "com.example.android.localnews.extra.TITLE";
+
+    private static final int BODY_LOADER_ID = 1;
+
+    //the web URL of the article shown
+    private String mArticleUrl;
+
+    //build an intent opening an article in the reader
+    public static Intent newIntent(Context context, NewsArticle article) {
+        Intent intent = new Intent(context, ArticleActivity.class);
+        intent.putExtra(EXTRA_URL, article.getUrl());
+        intent.putExtra(EXTRA_TITLE, article.getTitle());
+        return intent;
+    }
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_article);
+
+        mArticleUrl = getIntent().getStringExtra(EXTRA_URL);
+        TextView titleView = (TextView) findViewById(R.id.article_title);
+        titleView.setText(getIntent().getStringExtra(EXTRA_TITLE));
+
+        getLoaderManager().initLoader(BODY_LOADER_ID, null, this);
+    }
+
+    @Override
+    public Loader<String> onCreateLoader(int i, Bundle bundle) {
+        return new ArticleBodyLoader(this, mArticleUrl);
+    }
+
+    //show the body, or say it couldn't be loaded so the user can open the web page instead
+    @Override
+    public void onLoadFinished(Loader<String> loader, String body) {
+        ProgressBar progressBar = (ProgressBar) findViewById(R.id.article_loading_spinner);
+        progressBar.setVisibility(View.GONE);
+
+        TextView bodyView = (TextView) findViewById(R.id.article_body);
+        if (body == null || body.isEmpty()) {
+            bodyView.setText(Utilities.getRequestBudget().isThrottled()
+                    ? R.string.rate_limited : R.string.article_unavailable);
+        } else {
+            bodyView.setText(body);
+        }
+    }
+
+    @Override
+    public void onLoaderReset(Loader<String> loader) {
+    }
+
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.article, menu);
+        return true;
+    }
+
+    //open the full web page in the browser
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+        if (item.getItemId() == R.id.action_open_in_browser) {
+            startActivity(new Intent(Intent.ACTION_VIEW, Uri.parse(mArticleUrl)));
+            return true;
+        }
+        return super.onOptionsItemSelected(item);
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.android.localnews;
+
+import android.content.AsyncTaskLoader;
+import android.content.Context;
+import android.os.CancellationSignal;
+import android.os.OperationCanceledException;
+
+//loader for the body text of one article, read from the body store or fetched if it isn't there
+public class ArticleBodyLoader extends AsyncTaskLoader<String> {
+
+    //the web URL of the article
+    private final String mArticleUrl;
+
+    //cancels the fetch running now when the reader is closed before the body arrives, a cancelled
+    //signal can't be reused so each load gets its own, guarded by this loader
+    private CancellationSignal mSignal;
+
+    //the body delivered last, kept so a restarted reader shows it without fetching again
+    private String mBody;
+
+    //construct a new loader for the article at a given web URL
+    public ArticleBodyLoader(Context context, String articleUrl) {
+        super(context);
+        mArticleUrl = articleUrl;
+    }
+
+    //show the body we already have, and load it if we don't
+    @Override
+    protected void onStartLoading() {
+        if (mBody != null) {
+            deliverResult(mBody);
+        }
+        if (mBody == null || takeContentChanged()) {
+            forceLoad();
+        }
+    }
+
+    @Override
+    protected void onStopLoading() {
+        cancelLoad();
+    }
+
+    @Override
+    protected void onReset() {
+        onStopLoading();
+        mBody = null;
+    }
+
+    //read or fetch the body on a background thread, null if it couldn't be fetched
+    @Override
+    public String loadInBackground() {
+        CancellationSignal signal;
+        synchronized (this) {
+            if (isLoadInBackgroundCanceled()) {
+                throw new OperationCanceledException();
+            }
+            signal = new CancellationSignal();
+            mSignal = signal;
+        }
+        try {
+            return ArticleBodyStore.getInstance(getContext()).fetch(mArticleUrl,
+                    RequestBudget.Priority.FOREGROUND, signal);
+        } finally {
+            synchronized (this) {
+                mSignal = null;
+            }
+        }
+    }
+
+    @Override
+    public void cancelLoadInBackground() {
+        super.cancelLoadInBackground();
+        synchronized (this) {
+            if (mSignal != null) {
+                mSignal.cancel();
+            }
+        }
+    }
+
+    @Override
+    public void deliverResult(String body) {
+        if (isReset()) {
+            return;
+        }
+        mBody = body;
+        if (isStarted()) {
+            super.deliverResult(body);
+        }
+    }
+}
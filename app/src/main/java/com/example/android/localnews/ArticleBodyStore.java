@@ -0,0 +1,146 @@
+package com.example.android.localnews;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.CancellationSignal;
+import android.util.Log;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.List;
+
+//on-device store of article body text, so an article opens in the reader at once and offline,
+//bodies are fetched through the item endpoint's field projection and kept under a disk budget
+public class ArticleBodyStore {
+
+    private static final String LOG_TAG = "ArticleBodyStore: ";
+
+    //our single item request URL, the article's id is appended as its path
+    private static final String REQUEST_URL = "https://content.guardianapis.com";
+
+    //the directory inside the app's cache directory bodies are stored in
+    private static final String DIRECTORY_NAME = "bodies";
+
+    //the total size of stored bodies before the least recently read ones are evicted,
+    //a few hundred articles of plain text
+    static final long MAX_DISK_BYTES = 4 * 1024 * 1024;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static ArticleBodyStore sInstance;
+
+    //stored bodies keyed by article URL
+    private final FileLruCache mFiles;
+
+    private ArticleBodyStore(File directory) {
+        mFiles = new FileLruCache(directory, MAX_DISK_BYTES);
+    }
+
+    //get the single store shared by the whole app
+    public static synchronized ArticleBodyStore getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new ArticleBodyStore(new File(context.getCacheDir(), DIRECTORY_NAME));
+        }
+        return sInstance;
+    }
+
+    //get the stored body of an article, or null if it isn't stored
+    public String get(String articleUrl) {
+        File file = mFiles.get(articleUrl);
+        if (file == null) {
+            return null;
+        }
+
+        byte[] bytes = new byte[(int) file.length()];
+        InputStream in = null;
+        try {
+            in = new FileInputStream(file);
+            int read = 0;
+            while (read < bytes.length) {
+                int count = in.read(bytes, read, bytes.length - read);
+                if (count == -1) {
+                    break;
+                }
+                read += count;
+            }
+            return new String(bytes, 0, read, UTF_8);
+        } catch (IOException e) {
+            Log.e(LOG_TAG, "Problem reading a stored body.", e);
+            return null;
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    //whether the body of an article is stored
+    public boolean contains(String articleUrl) {
+        return mFiles.get(articleUrl) != null;
+    }
+
+    //get the body of an article from the store, fetching and storing it if it isn't there,
+    //null if it couldn't be fetched
+    public String fetch(String articleUrl, RequestBudget.Priority priority, CancellationSignal signal) {
+        String body = get(articleUrl);
+        if (body != null) {
+            return body;
+        }
+
+        String requestUrl = buildUrl(articleUrl);
+        if (requestUrl == null) {
+            return null;
+        }
+        body = Utilities.fetchArticleBody(requestUrl, priority, signal);
+        if (body == null || body.isEmpty()) {
+            return body;
+        }
+
+        try {
+            mFiles.put(articleUrl, new ByteArrayInputStream(body.getBytes(UTF_8)));
+        } catch (IOException e) {
+            Log.e(LOG_TAG, "Problem storing a body.", e);
+        }
+        return body;
+    }
+
+    //fetch the bodies of the first articles of a list that aren't stored yet, in the background,
+    //stopping early when cancelled or held back by the request budget, returns how many were fetched
+    public int prefetch(List<NewsArticle> articles, int max, CancellationSignal signal) {
+        int fetched = 0;
+        for (int i = 0; i < articles.size() && i < max && !signal.isCanceled(); i++) {
+            String url = articles.get(i).getUrl();
+            if (url == null || url.isEmpty() || contains(url)) {
+                continue;
+            }
+            if (fetch(url, RequestBudget.Priority.BACKGROUND, signal) == null) {
+                //a refused or failed request will be refused again, try on the next run
+                break;
+            }
+            fetched++;
+        }
+        return fetched;
+    }
+
+    //build the item request for an article's body text, the article's id is the path of its web URL,
+    //or null if the web URL has no path
+    static String buildUrl(String articleUrl) {
+        String path = Uri.parse(articleUrl).getEncodedPath();
+        if (path == null || path.length() <= 1) {
+            return null;
+        }
+
+        Uri.Builder uriBuilder = Uri.parse(REQUEST_URL).buildUpon();
+        uriBuilder.encodedPath(path);
+        uriBuilder.appendQueryParameter("api-key", BuildConfig.THE_GUARDIAN_API_KEY);
+        uriBuilder.appendQueryParameter("show-fields", "bodyText");
+        return uriBuilder.toString();
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.android.localnews;
+
+import android.provider.BaseColumns;
+
+//table and column names of the on-device article store
+public final class ArticleContract {
+
+    private ArticleContract() {
+    }
+
+    //one row per stored query result
+    public static final class QueryEntry implements BaseColumns {
+
+        public static final String TABLE_NAME = "queries";
+
+        //the NewsQuery key the result was fetched for
+        public static final String COLUMN_QUERY_KEY = "query_key";
+
+        //when the result was last fetched from the network, in epoch milliseconds
+        public static final String COLUMN_FETCHED_AT = "fetched_at";
+
+        //the number of articles a page asked for when the result was fetched
+        public static final String COLUMN_PAGE_SIZE = "page_size";
+    }
+
+    //one row per article of a stored query result
+    public static final class ArticleEntry implements BaseColumns {
+
+        public static final String TABLE_NAME = "articles";
+
+        public static final String COLUMN_QUERY_KEY = "query_key";
+
+        //the position of the article within its query result
+        public static final String COLUMN_POSITION = "position";
+
+        public static final String COLUMN_TITLE = "title";
+        public static final String COLUMN_AUTHOR = "author";
+        public static final String COLUMN_SECTION = "section";
+        public static final String COLUMN_URL = "url";
+
+        //the publication date in epoch milliseconds, null if unknown
+        public static final String COLUMN_PUBLISHED = "published";
+
+        //the URL of the thumbnail image, empty if the article has none
+        public static final String COLUMN_THUMBNAIL_URL = "thumbnail_url";
+    }
+
+    //one row per distinct article ever fetched, the content of the full text search index
+    public static final class IndexedEntry implements BaseColumns {
+
+        public static final String TABLE_NAME = "indexed_articles";
+
+        public static final String COLUMN_TITLE = "title";
+        public static final String COLUMN_AUTHOR = "author";
+        public static final String COLUMN_SECTION = "section";
+
+        //unique, an article is indexed once however many queries return it
+        public static final String COLUMN_URL = "url";
+
+        //the publication date in epoch milliseconds, null if unknown
+        public static final String COLUMN_PUBLISHED = "published";
+
+        //the URL of the thumbnail image, empty if the article has none
+        public static final String COLUMN_THUMBNAIL_URL = "thumbnail_url";
+    }
+
+    //one row per article of the list currently shown, so only the rows around the visible
+    //position need to be held in memory, the _ID is the position in the list counting from 1
+    public static final class PagedEntry implements BaseColumns {
+
+        public static final String TABLE_NAME = "paged_articles";
+
+        public static final String COLUMN_TITLE = "title";
+        public static final String COLUMN_AUTHOR = "author";
+        public static final String COLUMN_SECTION = "section";
+
+        //unique, an article repeated on a later page is only listed once
+        public static final String COLUMN_URL = "url";
+
+        //the publication date in epoch milliseconds, null if unknown
+        public static final String COLUMN_PUBLISHED = "published";
+
+        //the URL of the thumbnail image, empty if the article has none
+        public static final String COLUMN_THUMBNAIL_URL = "thumbnail_url";
+    }
+
+    //FTS4 index over the title, author and section of the indexed articles,
+    //its docid is the _ID of the IndexedEntry row and it stores no copy of the text
+    public static final class SearchEntry {
+
+        public static final String TABLE_NAME = "article_search";
+
+        public static final String COLUMN_TITLE = IndexedEntry.COLUMN_TITLE;
+        public static final String COLUMN_AUTHOR = IndexedEntry.COLUMN_AUTHOR;
+        public static final String COLUMN_SECTION = IndexedEntry.COLUMN_SECTION;
+    }
+}
@@ -0,0 +1,554 @@
+package com.example.android.localnews;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+
+import com.example.android.localnews.ArticleContract.ArticleEntry;
+import com.example.android.localnews.ArticleContract.IndexedEntry;
+import com.example.android.localnews.ArticleContract.PagedEntry;
+import com.example.android.localnews.ArticleContract.QueryEntry;
+import com.example.android.localnews.ArticleContract.SearchEntry;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+//on-device SQLite store holding the last fetched result of each query,
+//so a list can be shown before the network has answered
+public class ArticleStore extends SQLiteOpenHelper {
+
+    private static final String DATABASE_NAME = "articles.db";
+    private static final int DATABASE_VERSION = 6;
+
+    //stored results that have not been refreshed for this long are evicted
+    static final long MAX_AGE_MILLIS = TimeUnit.DAYS.toMillis(7);
+
+    //the number of query results kept before the least recently fetched ones are evicted
+    static final int MAX_QUERIES = 10;
+
+    //the number of articles kept in the search index before the earliest indexed ones are evicted
+    static final int MAX_INDEXED_ARTICLES = 5000;
+
+    //the fetch time reported for a query with no stored result
+    public static final long NOT_STORED = -1;
+
+    //scratch table the rest of the shown list is copied to while articles are put at its head
+    private static final String TAIL_TABLE_NAME = "paged_tail";
+
+    private static ArticleStore sInstance;
+
+    private ArticleStore(Context context) {
+        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+    }
+
+    //get the single store shared by the whole app
+    public static synchronized ArticleStore getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new ArticleStore(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + QueryEntry.TABLE_NAME + " ("
+                + QueryEntry._ID + " INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + QueryEntry.COLUMN_QUERY_KEY + " TEXT NOT NULL UNIQUE, "
+                + QueryEntry.COLUMN_FETCHED_AT + " INTEGER NOT NULL, "
+                + QueryEntry.COLUMN_PAGE_SIZE + " INTEGER NOT NULL)");
+
+        db.execSQL("CREATE TABLE " + ArticleEntry.TABLE_NAME + " ("
+                + ArticleEntry._ID + " INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + ArticleEntry.COLUMN_QUERY_KEY + " TEXT NOT NULL, "
+                + ArticleEntry.COLUMN_POSITION + " INTEGER NOT NULL, "
+                + ArticleEntry.COLUMN_TITLE + " TEXT, "
+                + ArticleEntry.COLUMN_AUTHOR + " TEXT, "
+                + ArticleEntry.COLUMN_SECTION + " TEXT, "
+                + ArticleEntry.COLUMN_URL + " TEXT, "
+                + ArticleEntry.COLUMN_PUBLISHED + " INTEGER, "
+                + ArticleEntry.COLUMN_THUMBNAIL_URL + " TEXT)");
+
+        db.execSQL("CREATE INDEX articles_query_position ON " + ArticleEntry.TABLE_NAME + " ("
+                + ArticleEntry.COLUMN_QUERY_KEY + ", " + ArticleEntry.COLUMN_POSITION + ")");
+
+        db.execSQL("CREATE TABLE " + IndexedEntry.TABLE_NAME + " ("
+                + IndexedEntry._ID + " INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + IndexedEntry.COLUMN_TITLE + " TEXT, "
+                + IndexedEntry.COLUMN_AUTHOR + " TEXT, "
+                + IndexedEntry.COLUMN_SECTION + " TEXT, "
+                + IndexedEntry.COLUMN_URL + " TEXT NOT NULL UNIQUE, "
+                + IndexedEntry.COLUMN_PUBLISHED + " INTEGER, "
+                + IndexedEntry.COLUMN_THUMBNAIL_URL + " TEXT)");
+
+        db.execSQL(createPagedTable(PagedEntry.TABLE_NAME, "NOT NULL UNIQUE"));
+
+        //the list shown can be narrowed to a section and sorted by date without going to the network
+        db.execSQL("CREATE INDEX paged_section_published ON " + PagedEntry.TABLE_NAME + " ("
+                + PagedEntry.COLUMN_SECTION + ", " + PagedEntry.COLUMN_PUBLISHED + ")");
+        db.execSQL("CREATE INDEX paged_published ON " + PagedEntry.TABLE_NAME + " ("
+                + PagedEntry.COLUMN_PUBLISHED + ")");
+
+        //an external content table, so the text is stored once in the indexed articles table
+        db.execSQL("CREATE VIRTUAL TABLE " + SearchEntry.TABLE_NAME + " USING fts4("
+                + "content=\"" + IndexedEntry.TABLE_NAME + "\", "
+                + SearchEntry.COLUMN_TITLE + ", " + SearchEntry.COLUMN_AUTHOR + ", " + SearchEntry.COLUMN_SECTION + ")");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        //the store only holds data that can be fetched again, so start over
+        db.execSQL("DROP TABLE IF EXISTS " + PagedEntry.TABLE_NAME);
+        db.execSQL("DROP TABLE IF EXISTS " + SearchEntry.TABLE_NAME);
+        db.execSQL("DROP TABLE IF EXISTS " + IndexedEntry.TABLE_NAME);
+        db.execSQL("DROP TABLE IF EXISTS " + ArticleEntry.TABLE_NAME);
+        db.execSQL("DROP TABLE IF EXISTS " + QueryEntry.TABLE_NAME);
+        onCreate(db);
+    }
+
+    //get the stored articles of a query in their original order, empty if nothing is stored
+    public List<NewsArticle> getArticles(String queryKey) {
+        List<NewsArticle> articles = new ArrayList<>();
+
+        Cursor cursor = getReadableDatabase().query(ArticleEntry.TABLE_NAME,
+                new String[]{ArticleEntry.COLUMN_TITLE, ArticleEntry.COLUMN_AUTHOR, ArticleEntry.COLUMN_SECTION,
+                        ArticleEntry.COLUMN_URL, ArticleEntry.COLUMN_PUBLISHED, ArticleEntry.COLUMN_THUMBNAIL_URL},
+                ArticleEntry.COLUMN_QUERY_KEY + " = ?", new String[]{queryKey},
+                null, null, ArticleEntry.COLUMN_POSITION);
+        try {
+            while (cursor.moveToNext()) {
+                long published = cursor.isNull(4) ? NewsArticle.NO_DATE : cursor.getLong(4);
+                articles.add(new NewsArticle(cursor.getString(0), cursor.getString(1), cursor.getString(2),
+                        cursor.getString(3), published, cursor.getString(5)));
+            }
+        } finally {
+            cursor.close();
+        }
+
+        return articles;
+    }
+
+    //get when the stored result of a query was fetched, in epoch milliseconds,
+    //or NOT_STORED if nothing is stored for it
+    public long getFetchedAt(String queryKey) {
+        Cursor cursor = getReadableDatabase().query(QueryEntry.TABLE_NAME,
+                new String[]{QueryEntry.COLUMN_FETCHED_AT},
+                QueryEntry.COLUMN_QUERY_KEY + " = ?", new String[]{queryKey},
+                null, null, null);
+        try {
+            return cursor.moveToFirst() ? cursor.getLong(0) : NOT_STORED;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    //get the page size the stored result of a query was fetched with, 0 if nothing is stored for it
+    public int getPageSize(String queryKey) {
+        Cursor cursor = getReadableDatabase().query(QueryEntry.TABLE_NAME,
+                new String[]{QueryEntry.COLUMN_PAGE_SIZE},
+                QueryEntry.COLUMN_QUERY_KEY + " = ?", new String[]{queryKey},
+                null, null, null);
+        try {
+            return cursor.moveToFirst() ? cursor.getInt(0) : 0;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    //replace the stored result of a query with a freshly fetched first page of a given size
+    //and evict old results
+    public void putArticles(String queryKey, int pageSize, List<NewsArticle> articles) {
+        long now = System.currentTimeMillis();
+        SQLiteDatabase db = getWritableDatabase();
+
+        db.beginTransaction();
+        try {
+            db.delete(ArticleEntry.TABLE_NAME, ArticleEntry.COLUMN_QUERY_KEY + " = ?", new String[]{queryKey});
+
+            SQLiteStatement insert = db.compileStatement("INSERT INTO " + ArticleEntry.TABLE_NAME + " ("
+                    + ArticleEntry.COLUMN_QUERY_KEY + ", " + ArticleEntry.COLUMN_POSITION + ", "
+                    + ArticleEntry.COLUMN_TITLE + ", " + ArticleEntry.COLUMN_AUTHOR + ", "
+                    + ArticleEntry.COLUMN_SECTION + ", " + ArticleEntry.COLUMN_URL + ", "
+                    + ArticleEntry.COLUMN_PUBLISHED + ", " + ArticleEntry.COLUMN_THUMBNAIL_URL
+                    + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?)");
+            try {
+                for (int i = 0; i < articles.size(); i++) {
+                    NewsArticle article = articles.get(i);
+                    insert.clearBindings();
+                    insert.bindString(1, queryKey);
+                    insert.bindLong(2, i);
+                    bindNullableString(insert, 3, article.getTitle());
+                    bindNullableString(insert, 4, article.getAuthor());
+                    bindNullableString(insert, 5, article.getSection());
+                    bindNullableString(insert, 6, article.getUrl());
+                    if (article.getPublished() != NewsArticle.NO_DATE) {
+                        insert.bindLong(7, article.getPublished());
+                    }
+                    bindNullableString(insert, 8, article.getThumbnailUrl());
+                    insert.executeInsert();
+                }
+            } finally {
+                insert.close();
+            }
+
+            ContentValues values = new ContentValues();
+            values.put(QueryEntry.COLUMN_QUERY_KEY, queryKey);
+            values.put(QueryEntry.COLUMN_FETCHED_AT, now);
+            values.put(QueryEntry.COLUMN_PAGE_SIZE, pageSize);
+            db.insertWithOnConflict(QueryEntry.TABLE_NAME, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+
+            evict(db, now);
+            index(db, articles);
+
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    //add the articles of a further page to the search index
+    public void indexArticles(List<NewsArticle> articles) {
+        SQLiteDatabase db = getWritableDatabase();
+
+        db.beginTransaction();
+        try {
+            index(db, articles);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    //find up to limit indexed articles whose title, author or section matches any term of a query,
+    //newest first, without going to the network
+    public List<NewsArticle> searchArticles(NewsQuery query, int limit) {
+        List<NewsArticle> articles = new ArrayList<>();
+        String match = query.getMatchQuery();
+        if (match.isEmpty()) {
+            return articles;
+        }
+
+        Cursor cursor = getReadableDatabase().rawQuery("SELECT i." + IndexedEntry.COLUMN_TITLE
+                + ", i." + IndexedEntry.COLUMN_AUTHOR + ", i." + IndexedEntry.COLUMN_SECTION
+                + ", i." + IndexedEntry.COLUMN_URL + ", i." + IndexedEntry.COLUMN_PUBLISHED
+                + ", i." + IndexedEntry.COLUMN_THUMBNAIL_URL
+                + " FROM " + SearchEntry.TABLE_NAME + " s JOIN " + IndexedEntry.TABLE_NAME
+                + " i ON i." + IndexedEntry._ID + " = s.docid"
+                + " WHERE " + SearchEntry.TABLE_NAME + " MATCH ?"
+                + " ORDER BY i." + IndexedEntry.COLUMN_PUBLISHED + " DESC LIMIT " + limit,
+                new String[]{match});
+        try {
+            while (cursor.moveToNext()) {
+                long published = cursor.isNull(4) ? NewsArticle.NO_DATE : cursor.getLong(4);
+                articles.add(new NewsArticle(cursor.getString(0), cursor.getString(1), cursor.getString(2),
+                        cursor.getString(3), published, cursor.getString(5)));
+            }
+        } finally {
+            cursor.close();
+        }
+
+        return articles;
+    }
+
+    //get up to limit of the indexed articles, newest first
+    public List<NewsArticle> getIndexedArticles(int limit) {
+        List<NewsArticle> articles = new ArrayList<>();
+
+        Cursor cursor = getReadableDatabase().query(IndexedEntry.TABLE_NAME,
+                new String[]{IndexedEntry.COLUMN_TITLE, IndexedEntry.COLUMN_AUTHOR, IndexedEntry.COLUMN_SECTION,
+                        IndexedEntry.COLUMN_URL, IndexedEntry.COLUMN_PUBLISHED, IndexedEntry.COLUMN_THUMBNAIL_URL},
+                null, null, null, null, IndexedEntry.COLUMN_PUBLISHED + " DESC", String.valueOf(limit));
+        try {
+            while (cursor.moveToNext()) {
+                long published = cursor.isNull(4) ? NewsArticle.NO_DATE : cursor.getLong(4);
+                articles.add(new NewsArticle(cursor.getString(0), cursor.getString(1), cursor.getString(2),
+                        cursor.getString(3), published, cursor.getString(5)));
+            }
+        } finally {
+            cursor.close();
+        }
+
+        return articles;
+    }
+
+    //replace the list currently shown with a new one, returning its length
+    public int replacePagedArticles(List<NewsArticle> articles) {
+        SQLiteDatabase db = getWritableDatabase();
+
+        db.beginTransaction();
+        try {
+            db.delete(PagedEntry.TABLE_NAME, null, null);
+            insertPaged(db, PagedEntry.TABLE_NAME, articles);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        return getPagedCount();
+    }
+
+    //add a further page to the end of the list currently shown, leaving out the articles
+    //it already holds, returning its new length
+    public int appendPagedArticles(List<NewsArticle> articles) {
+        SQLiteDatabase db = getWritableDatabase();
+
+        db.beginTransaction();
+        try {
+            insertPaged(db, PagedEntry.TABLE_NAME, articles);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        return getPagedCount();
+    }
+
+    //put articles at the head of the list currently shown, moving the ones it already holds up front
+    //and renumbering the rest after them, returning its new length
+    public int prependPagedArticles(List<NewsArticle> articles) {
+        SQLiteDatabase db = getWritableDatabase();
+        String columns = PagedEntry.COLUMN_TITLE + ", " + PagedEntry.COLUMN_AUTHOR + ", "
+                + PagedEntry.COLUMN_SECTION + ", " + PagedEntry.COLUMN_URL + ", "
+                + PagedEntry.COLUMN_PUBLISHED + ", " + PagedEntry.COLUMN_THUMBNAIL_URL;
+
+        db.beginTransaction();
+        try {
+            for (NewsArticle article : articles) {
+                db.delete(PagedEntry.TABLE_NAME, PagedEntry.COLUMN_URL + " = ?", new String[]{article.getUrl()});
+            }
+
+            //copy the rest aside in order, the copies are numbered from 1 again
+            db.execSQL(createPagedTable("temp." + TAIL_TABLE_NAME, ""));
+            db.execSQL("INSERT INTO " + TAIL_TABLE_NAME + " (" + columns + ") SELECT " + columns
+                    + " FROM " + PagedEntry.TABLE_NAME + " ORDER BY " + PagedEntry._ID);
+            db.delete(PagedEntry.TABLE_NAME, null, null);
+
+            int headCount = insertPaged(db, PagedEntry.TABLE_NAME, articles);
+            db.execSQL("INSERT INTO " + PagedEntry.TABLE_NAME + " (" + PagedEntry._ID + ", " + columns
+                    + ") SELECT " + PagedEntry._ID + " + " + headCount + ", " + columns
+                    + " FROM " + TAIL_TABLE_NAME);
+            db.execSQL("DROP TABLE " + TAIL_TABLE_NAME);
+
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        return getPagedCount();
+    }
+
+    //get the articles of the list currently shown from a position counting from 0,
+    //fewer than count at the end of the list
+    public List<NewsArticle> getPagedArticles(int from, int count) {
+        List<NewsArticle> articles = new ArrayList<>(count);
+
+        Cursor cursor = getReadableDatabase().query(PagedEntry.TABLE_NAME,
+                new String[]{PagedEntry.COLUMN_TITLE, PagedEntry.COLUMN_AUTHOR, PagedEntry.COLUMN_SECTION,
+                        PagedEntry.COLUMN_URL, PagedEntry.COLUMN_PUBLISHED, PagedEntry.COLUMN_THUMBNAIL_URL},
+                PagedEntry._ID + " > ? AND " + PagedEntry._ID + " <= ?",
+                new String[]{String.valueOf(from), String.valueOf(from + count)},
+                null, null, PagedEntry._ID);
+        try {
+            while (cursor.moveToNext()) {
+                long published = cursor.isNull(4) ? NewsArticle.NO_DATE : cursor.getLong(4);
+                articles.add(new NewsArticle(cursor.getString(0), cursor.getString(1), cursor.getString(2),
+                        cursor.getString(3), published, cursor.getString(5)));
+            }
+        } finally {
+            cursor.close();
+        }
+
+        return articles;
+    }
+
+    //get the articles of the list currently shown that are in a section, or all of them if it is null,
+    //from a position counting from 0, newest first or in the order of the list,
+    //fewer than count at the end of the list
+    public List<NewsArticle> getPagedArticles(String section, boolean newestFirst, int from, int count) {
+        if (section == null && !newestFirst) {
+            return getPagedArticles(from, count);
+        }
+        List<NewsArticle> articles = new ArrayList<>(count);
+
+        //undated articles sort as the oldest
+        Cursor cursor = getReadableDatabase().query(PagedEntry.TABLE_NAME,
+                new String[]{PagedEntry.COLUMN_TITLE, PagedEntry.COLUMN_AUTHOR, PagedEntry.COLUMN_SECTION,
+                        PagedEntry.COLUMN_URL, PagedEntry.COLUMN_PUBLISHED, PagedEntry.COLUMN_THUMBNAIL_URL},
+                section == null ? null : PagedEntry.COLUMN_SECTION + " = ?",
+                section == null ? null : new String[]{section},
+                null, null,
+                (newestFirst ? PagedEntry.COLUMN_PUBLISHED + " DESC, " : "") + PagedEntry._ID,
+                from + ", " + count);
+        try {
+            while (cursor.moveToNext()) {
+                long published = cursor.isNull(4) ? NewsArticle.NO_DATE : cursor.getLong(4);
+                articles.add(new NewsArticle(cursor.getString(0), cursor.getString(1), cursor.getString(2),
+                        cursor.getString(3), published, cursor.getString(5)));
+            }
+        } finally {
+            cursor.close();
+        }
+
+        return articles;
+    }
+
+    //get the length of the list currently shown
+    public int getPagedCount() {
+        return (int) DatabaseUtils.queryNumEntries(getReadableDatabase(), PagedEntry.TABLE_NAME);
+    }
+
+    //get the number of articles of the list currently shown in a section, or all of them if it is null
+    public int getPagedCount(String section) {
+        if (section == null) {
+            return getPagedCount();
+        }
+        return (int) DatabaseUtils.queryNumEntries(getReadableDatabase(), PagedEntry.TABLE_NAME,
+                PagedEntry.COLUMN_SECTION + " = ?", new String[]{section});
+    }
+
+    //get the sections of the list currently shown with the number of articles in each, largest first,
+    //articles without a section aren't counted
+    public Map<String, Integer> getPagedSections() {
+        Map<String, Integer> sections = new LinkedHashMap<>();
+
+        Cursor cursor = getReadableDatabase().rawQuery("SELECT " + PagedEntry.COLUMN_SECTION + ", COUNT(*) AS n"
+                + " FROM " + PagedEntry.TABLE_NAME
+                + " WHERE " + PagedEntry.COLUMN_SECTION + " IS NOT NULL"
+                + " GROUP BY " + PagedEntry.COLUMN_SECTION
+                + " ORDER BY n DESC, " + PagedEntry.COLUMN_SECTION, null);
+        try {
+            while (cursor.moveToNext()) {
+                sections.put(cursor.getString(0), cursor.getInt(1));
+            }
+        } finally {
+            cursor.close();
+        }
+
+        return sections;
+    }
+
+    //the schema of the list currently shown, the _ID is an alias of the rowid
+    //so an insert without one numbers the row right after the last
+    private static String createPagedTable(String tableName, String urlConstraint) {
+        return "CREATE TABLE " + tableName + " ("
+                + PagedEntry._ID + " INTEGER PRIMARY KEY, "
+                + PagedEntry.COLUMN_TITLE + " TEXT, "
+                + PagedEntry.COLUMN_AUTHOR + " TEXT, "
+                + PagedEntry.COLUMN_SECTION + " TEXT, "
+                + PagedEntry.COLUMN_URL + " TEXT " + urlConstraint + ", "
+                + PagedEntry.COLUMN_PUBLISHED + " INTEGER, "
+                + PagedEntry.COLUMN_THUMBNAIL_URL + " TEXT)";
+    }
+
+    //number articles after the last row of the list, skipping the ones it already holds,
+    //returns how many were added
+    private static int insertPaged(SQLiteDatabase db, String tableName, List<NewsArticle> articles) {
+        SQLiteStatement insert = db.compileStatement("INSERT OR IGNORE INTO " + tableName + " ("
+                + PagedEntry.COLUMN_TITLE + ", " + PagedEntry.COLUMN_AUTHOR + ", "
+                + PagedEntry.COLUMN_SECTION + ", " + PagedEntry.COLUMN_URL + ", "
+                + PagedEntry.COLUMN_PUBLISHED + ", " + PagedEntry.COLUMN_THUMBNAIL_URL
+                + ") VALUES (?, ?, ?, ?, ?, ?)");
+        int added = 0;
+        try {
+            for (NewsArticle article : articles) {
+                if (article.getUrl() == null) {
+                    continue;
+                }
+                insert.clearBindings();
+                bindNullableString(insert, 1, article.getTitle());
+                bindNullableString(insert, 2, article.getAuthor());
+                bindNullableString(insert, 3, article.getSection());
+                insert.bindString(4, article.getUrl());
+                if (article.getPublished() != NewsArticle.NO_DATE) {
+                    insert.bindLong(5, article.getPublished());
+                }
+                bindNullableString(insert, 6, article.getThumbnailUrl());
+                if (insert.executeInsert() != -1) {
+                    added++;
+                }
+            }
+        } finally {
+            insert.close();
+        }
+        return added;
+    }
+
+    //index the articles that aren't indexed yet and evict the earliest indexed ones past the limit,
+    //only touching the new rows so the cost grows with the batch rather than the index
+    private static void index(SQLiteDatabase db, List<NewsArticle> articles) {
+        SQLiteStatement insert = db.compileStatement("INSERT OR IGNORE INTO " + IndexedEntry.TABLE_NAME + " ("
+                + IndexedEntry.COLUMN_TITLE + ", " + IndexedEntry.COLUMN_AUTHOR + ", "
+                + IndexedEntry.COLUMN_SECTION + ", " + IndexedEntry.COLUMN_URL + ", "
+                + IndexedEntry.COLUMN_PUBLISHED + ", " + IndexedEntry.COLUMN_THUMBNAIL_URL
+                + ") VALUES (?, ?, ?, ?, ?, ?)");
+        SQLiteStatement insertSearch = db.compileStatement("INSERT INTO " + SearchEntry.TABLE_NAME + " (docid, "
+                + SearchEntry.COLUMN_TITLE + ", " + SearchEntry.COLUMN_AUTHOR + ", "
+                + SearchEntry.COLUMN_SECTION + ") VALUES (?, ?, ?, ?)");
+        long lastId = -1;
+        try {
+            for (NewsArticle article : articles) {
+                if (article.getUrl() == null || article.getUrl().isEmpty()) {
+                    continue;
+                }
+                insert.clearBindings();
+                bindNullableString(insert, 1, article.getTitle());
+                bindNullableString(insert, 2, article.getAuthor());
+                bindNullableString(insert, 3, article.getSection());
+                insert.bindString(4, article.getUrl());
+                if (article.getPublished() != NewsArticle.NO_DATE) {
+                    insert.bindLong(5, article.getPublished());
+                }
+                bindNullableString(insert, 6, article.getThumbnailUrl());
+
+                //an article that is already indexed is ignored and reports no row id
+                long id = insert.executeInsert();
+                if (id == -1) {
+                    continue;
+                }
+                insertSearch.clearBindings();
+                insertSearch.bindLong(1, id);
+                bindNullableString(insertSearch, 2, article.getTitle());
+                bindNullableString(insertSearch, 3, article.getAuthor());
+                bindNullableString(insertSearch, 4, article.getSection());
+                insertSearch.executeInsert();
+                lastId = id;
+            }
+        } finally {
+            insert.close();
+            insertSearch.close();
+        }
+
+        //ids only grow, so everything more than the limit below the newest id is the oldest,
+        //the index reads the text it drops from the content rows, so it goes before them
+        if (lastId > MAX_INDEXED_ARTICLES) {
+            String[] evictBelow = new String[]{String.valueOf(lastId - MAX_INDEXED_ARTICLES)};
+            db.delete(SearchEntry.TABLE_NAME, "docid <= ?", evictBelow);
+            db.delete(IndexedEntry.TABLE_NAME, IndexedEntry._ID + " <= ?", evictBelow);
+        }
+    }
+
+    //drop results past their maximum age and all but the most recently fetched queries
+    private static void evict(SQLiteDatabase db, long now) {
+        db.delete(QueryEntry.TABLE_NAME, QueryEntry.COLUMN_FETCHED_AT + " < ?",
+                new String[]{String.valueOf(now - MAX_AGE_MILLIS)});
+
+        db.delete(QueryEntry.TABLE_NAME, QueryEntry.COLUMN_QUERY_KEY + " NOT IN (SELECT "
+                        + QueryEntry.COLUMN_QUERY_KEY + " FROM " + QueryEntry.TABLE_NAME
+                        + " ORDER BY " + QueryEntry.COLUMN_FETCHED_AT + " DESC LIMIT ?)",
+                new String[]{String.valueOf(MAX_QUERIES)});
+
+        db.delete(ArticleEntry.TABLE_NAME, ArticleEntry.COLUMN_QUERY_KEY + " NOT IN (SELECT "
+                + QueryEntry.COLUMN_QUERY_KEY + " FROM " + QueryEntry.TABLE_NAME + ")", null);
+    }
+
+    private static void bindNullableString(SQLiteStatement statement, int index, String value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
+        }
+    }
+}
@@ -0,0 +1,435 @@
+package com.example.android.localnews;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+//the list of articles shown, kept in the article store with only a few chunks of rows around the
+//visible position in memory, so the heap stays the same however many pages the user scrolls through
+public class ArticleWindow {
+
+    //the rows read from the store at once
+    static final int CHUNK_SIZE = 50;
+
+    //the chunks kept in memory, enough for the rows on screen and a chunk either side
+    static final int MAX_CHUNKS = 4;
+
+    //how close to the edge of its chunk a visible row has to be for the next chunk to be read
+    private static final int PREFETCH_ROWS = 15;
+
+    //told when rows have arrived or the list has changed, always on the main thread
+    public interface Listener {
+        void onWindowChanged();
+    }
+
+    //told the sections of the list with the number of articles in each, largest first, on the main thread
+    public interface SectionsListener {
+        void onSectionsLoaded(Map<String, Integer> sections);
+    }
+
+    //all reads and writes of the list run in order on one thread, so a read always sees
+    //the writes requested before it
+    private static final Executor EXECUTOR = new ThreadPoolExecutor(0, 1, 30, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    return new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                            runnable.run();
+                        }
+                    }, "ArticleWindow");
+                }
+            });
+
+    private final ArticleStore mStore;
+    private final Listener mListener;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    //the chunks in memory, the index of the chunk each slot holds, -1 for an empty slot,
+    //and when each was last used so the least recently used one is replaced first
+    @SuppressWarnings("unchecked")
+    private final List<NewsArticle>[] mChunks = new List[MAX_CHUNKS];
+    private final int[] mChunkIndexes = new int[MAX_CHUNKS];
+    private final long[] mChunkUses = new long[MAX_CHUNKS];
+    private long mUseCount;
+
+    //the chunks being read from the store
+    private final Set<Integer> mPendingChunks = new HashSet<>();
+
+    //the articles the list was last replaced with, which it still starts with
+    private List<NewsArticle> mHead = Collections.emptyList();
+
+    //the length of the list as shown, and of the whole list
+    private int mCount;
+    private int mTotalCount;
+
+    //the section the list is narrowed to, null for all of them, and whether it is shown
+    //newest first rather than in the order it was fetched in
+    private String mSection;
+    private boolean mNewestFirst;
+
+    //counts the changes that move rows, a read started before one is out of date
+    private int mGeneration;
+
+    //construct an empty window
+    public ArticleWindow(Context context, Listener listener) {
+        mStore = ArticleStore.getInstance(context);
+        mListener = listener;
+        for (int i = 0; i < MAX_CHUNKS; i++) {
+            mChunkIndexes[i] = -1;
+        }
+    }
+
+    //get the length of the list as shown
+    public int getCount() {
+        return mCount;
+    }
+
+    //get the length of the whole list, whatever section it is narrowed to
+    public int getTotalCount() {
+        return mTotalCount;
+    }
+
+    //narrow the list to a section, or show all of them if it is null, and show it newest first
+    //or in the order it was fetched in, the rows are read again from the store in the new order
+    public void setView(final String section, final boolean newestFirst) {
+        if (newestFirst == mNewestFirst && (section == null ? mSection == null : section.equals(mSection))) {
+            return;
+        }
+        mSection = section;
+        mNewestFirst = newestFirst;
+        final int generation = ++mGeneration;
+        mPendingChunks.clear();
+        clearChunks();
+        EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                final int count = mStore.getPagedCount(section);
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation != mGeneration) {
+                            return;
+                        }
+                        mCount = count;
+                        mListener.onWindowChanged();
+                    }
+                });
+            }
+        });
+        mListener.onWindowChanged();
+    }
+
+    //get the section the list is narrowed to, null for all of them
+    public String getSection() {
+        return mSection;
+    }
+
+    //count the articles of each section of the whole list
+    public void loadSections(final SectionsListener listener) {
+        EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                final Map<String, Integer> sections = mStore.getPagedSections();
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        listener.onSectionsLoaded(sections);
+                    }
+                });
+            }
+        });
+    }
+
+    //get the article at a position, or null if its row hasn't been read from the store yet,
+    //in which case the listener is told once it has, also reads the next chunk ahead of time
+    public NewsArticle get(int position) {
+        int chunk = position / CHUNK_SIZE;
+        int offset = position % CHUNK_SIZE;
+        if (offset >= CHUNK_SIZE - PREFETCH_ROWS) {
+            loadChunk(chunk + 1);
+        } else if (offset < PREFETCH_ROWS && chunk > 0) {
+            loadChunk(chunk - 1);
+        }
+
+        List<NewsArticle> rows = useChunk(chunk);
+        if (rows == null || offset >= rows.size()) {
+            loadChunk(chunk);
+            return null;
+        }
+        return rows.get(offset);
+    }
+
+    //replace the list, reusing the instances of the articles in memory that haven't changed so
+    //their rows aren't rebound, and returning whether anything changed at all, the new list
+    //is shown at once and written to the store in the background
+    public boolean replace(List<NewsArticle> articles) {
+        Map<String, NewsArticle> shown = new HashMap<>();
+        for (List<NewsArticle> rows : mChunks) {
+            if (rows != null) {
+                for (NewsArticle article : rows) {
+                    shown.put(article.getUrl(), article);
+                }
+            }
+        }
+
+        for (NewsArticle article : mHead) {
+            if (!shown.containsKey(article.getUrl())) {
+                shown.put(article.getUrl(), article);
+            }
+        }
+
+        //a narrowed or sorted list doesn't show the rows in the order they were written,
+        //so it is compared by the head of the list as it was written instead
+        boolean viewed = isViewed();
+        boolean changed = articles.size() != mTotalCount;
+        List<NewsArticle> merged = new ArrayList<>(articles.size());
+        for (int i = 0; i < articles.size(); i++) {
+            NewsArticle article = articles.get(i);
+            NewsArticle previous = shown.get(article.getUrl());
+            if (previous != null && previous.hasSameContent(article)) {
+                article = previous;
+            }
+            merged.add(article);
+            changed |= (viewed ? (i < mHead.size() ? mHead.get(i) : null) : peek(i)) != article;
+        }
+        if (!changed) {
+            return false;
+        }
+
+        final int generation = ++mGeneration;
+        mPendingChunks.clear();
+        clearChunks();
+        mHead = merged;
+        mTotalCount = merged.size();
+
+        //the new list is shown as it is unless it is narrowed or sorted, then the rows shown
+        //are read back once it has been written
+        if (!viewed) {
+            for (int chunk = 0; chunk < MAX_CHUNKS && chunk * CHUNK_SIZE < merged.size(); chunk++) {
+                putChunk(chunk, merged.subList(chunk * CHUNK_SIZE,
+                        Math.min(merged.size(), (chunk + 1) * CHUNK_SIZE)));
+            }
+            mCount = merged.size();
+        }
+
+        final List<NewsArticle> written = merged;
+        final String section = mSection;
+        final boolean recount = viewed;
+        EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                mStore.replacePagedArticles(written);
+                if (recount) {
+                    postCount(generation, mStore.getPagedCount(section));
+                }
+            }
+        });
+        mListener.onWindowChanged();
+        return true;
+    }
+
+    //add a further page to the end of the list, leaving out articles it already holds,
+    //the listener is told once the page has been written
+    public void append(final List<NewsArticle> articles) {
+        final int generation = mGeneration;
+        final int lastChunk = mCount / CHUNK_SIZE;
+        final boolean viewed = isViewed();
+        final String section = mSection;
+        EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                final int totalCount = mStore.appendPagedArticles(articles);
+                final int count = viewed ? mStore.getPagedCount(section) : totalCount;
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation != mGeneration) {
+                            return;
+                        }
+                        //the last chunk in memory may be missing the rows that were just added,
+                        //in a sorted list they may have gone anywhere
+                        if (viewed) {
+                            clearChunks();
+                        } else {
+                            dropChunk(lastChunk);
+                        }
+                        mCount = count;
+                        mTotalCount = totalCount;
+                        mListener.onWindowChanged();
+                    }
+                });
+            }
+        });
+    }
+
+    //put a fresh first page at the head of the list, moving articles it already holds up to it,
+    //the rows shown until the list has been rewritten are then replaced all at once
+    public void prepend(final List<NewsArticle> articles) {
+        final int generation = ++mGeneration;
+        mPendingChunks.clear();
+        final String section = mSection;
+        EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                final int totalCount = mStore.prependPagedArticles(articles);
+                final int count = section == null ? totalCount : mStore.getPagedCount(section);
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation != mGeneration) {
+                            return;
+                        }
+                        clearChunks();
+                        mHead = articles;
+                        mCount = count;
+                        mTotalCount = totalCount;
+                        mListener.onWindowChanged();
+                    }
+                });
+            }
+        });
+    }
+
+    //check whether the list starts with the same articles in the same order
+    public boolean startsWith(List<NewsArticle> articles) {
+        if (mHead.size() < articles.size()) {
+            return false;
+        }
+        for (int i = 0; i < articles.size(); i++) {
+            if (!mHead.get(i).hasSameContent(articles.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //empty the list
+    public void clear() {
+        replace(Collections.<NewsArticle>emptyList());
+    }
+
+    //read a chunk from the store unless it is in memory, being read or past the end of the list
+    private void loadChunk(final int chunk) {
+        if (chunk * CHUNK_SIZE >= mCount || findChunk(chunk) != -1 || !mPendingChunks.add(chunk)) {
+            return;
+        }
+        final int generation = mGeneration;
+        final String section = mSection;
+        final boolean newestFirst = mNewestFirst;
+        EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                final List<NewsArticle> rows = mStore.getPagedArticles(section, newestFirst,
+                        chunk * CHUNK_SIZE, CHUNK_SIZE);
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation != mGeneration) {
+                            return;
+                        }
+                        mPendingChunks.remove(chunk);
+                        putChunk(chunk, rows);
+                        mListener.onWindowChanged();
+                    }
+                });
+            }
+        });
+    }
+
+    //whether the list is shown narrowed or sorted rather than as it was written
+    private boolean isViewed() {
+        return mSection != null || mNewestFirst;
+    }
+
+    //show the length of the narrowed or sorted list once it has been counted after a write
+    private void postCount(final int generation, final int count) {
+        mMainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (generation != mGeneration) {
+                    return;
+                }
+                mCount = count;
+                mListener.onWindowChanged();
+            }
+        });
+    }
+
+    //the article at a position if it is in memory, without reading anything
+    private NewsArticle peek(int position) {
+        int slot = findChunk(position / CHUNK_SIZE);
+        if (slot == -1 || position % CHUNK_SIZE >= mChunks[slot].size()) {
+            return null;
+        }
+        return mChunks[slot].get(position % CHUNK_SIZE);
+    }
+
+    //the rows of a chunk in memory, marked as just used, or null if it isn't in memory
+    private List<NewsArticle> useChunk(int chunk) {
+        int slot = findChunk(chunk);
+        if (slot == -1) {
+            return null;
+        }
+        mChunkUses[slot] = ++mUseCount;
+        return mChunks[slot];
+    }
+
+    private int findChunk(int chunk) {
+        for (int slot = 0; slot < MAX_CHUNKS; slot++) {
+            if (mChunkIndexes[slot] == chunk) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    //keep a chunk in memory in place of the least recently used one
+    private void putChunk(int chunk, List<NewsArticle> rows) {
+        int slot = findChunk(chunk);
+        if (slot == -1) {
+            slot = 0;
+            for (int i = 1; i < MAX_CHUNKS; i++) {
+                if (mChunkUses[i] < mChunkUses[slot]) {
+                    slot = i;
+                }
+            }
+        }
+        mChunks[slot] = rows;
+        mChunkIndexes[slot] = chunk;
+        mChunkUses[slot] = ++mUseCount;
+    }
+
+    private void dropChunk(int chunk) {
+        int slot = findChunk(chunk);
+        if (slot != -1) {
+            mChunks[slot] = null;
+            mChunkIndexes[slot] = -1;
+            mChunkUses[slot] = 0;
+        }
+    }
+
+    private void clearChunks() {
+        for (int slot = 0; slot < MAX_CHUNKS; slot++) {
+            mChunks[slot] = null;
+            mChunkIndexes[slot] = -1;
+            mChunkUses[slot] = 0;
+        }
+    }
+}
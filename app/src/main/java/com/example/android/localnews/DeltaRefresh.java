@@ -0,0 +1,89 @@
+package com.example.android.localnews;
+
+import android.content.Context;
+import android.os.CancellationSignal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+//refreshes the first page of a query ordered by newest by only asking for articles published
+//since the newest one stored for it, so a refresh when nothing has changed downloads next to nothing
+public final class DeltaRefresh {
+
+    private DeltaRefresh() {
+    }
+
+    //fetch the first page of a query, returns null if it failed or was cancelled
+    public static QueryFanOut.Result fetchFirstPage(Context context, NewsQuery query, int maxConcurrent,
+                                                    RequestBudget.Priority priority, CancellationSignal signal) {
+        //relevance ranks can change without anything new being published, so they are always fetched whole
+        List<NewsArticle> stored = Collections.emptyList();
+        if (NewsQuery.ORDER_BY_NEWEST.equals(query.getOrderBy())) {
+            ArticleStore store = ArticleStore.getInstance(context);
+            stored = usableStored(store.getArticles(query.getKey()), store.getPageSize(query.getKey()),
+                    query.getPageSize());
+        }
+        long newest = newestOf(stored);
+
+        QueryFanOut.Result result = QueryFanOut.fetch(context, query, 1, newest, maxConcurrent, priority, signal);
+        if (result == null || newest == NewsArticle.NO_DATE) {
+            return result;
+        }
+
+        return mergeResult(result, stored, query.getPageSize());
+    }
+
+    //the stored first page a delta can be merged into, none if it was fetched with another page size,
+    //as how it lines up with later pages and whether it held the whole result only hold for its own size
+    static List<NewsArticle> usableStored(List<NewsArticle> stored, int storedPageSize, int pageSize) {
+        return storedPageSize == pageSize ? stored : Collections.<NewsArticle>emptyList();
+    }
+
+    //the first page made of the result of a delta request and the stored first page of the same size
+    static QueryFanOut.Result mergeResult(QueryFanOut.Result delta, List<NewsArticle> stored, int pageSize) {
+        //a full page of new articles may be followed by more we haven't got,
+        //so it replaces the stored result just like a full refresh would
+        if (!delta.isLastPage()) {
+            return delta;
+        }
+
+        //the result is all there is only if the stored page was, and the new articles fit beside it
+        boolean lastPage = stored.size() < pageSize && delta.getArticles().size() + stored.size() <= pageSize;
+        return new QueryFanOut.Result(merge(delta.getArticles(), stored, pageSize), lastPage);
+    }
+
+    //the publication time of the newest dated article, NewsArticle.NO_DATE if there is none
+    static long newestOf(List<NewsArticle> articles) {
+        long newest = NewsArticle.NO_DATE;
+        for (NewsArticle article : articles) {
+            newest = Math.max(newest, article.getPublished());
+        }
+        return newest;
+    }
+
+    //put new articles at the head of the stored ones without repeating an article, keeping as many
+    //as a full first page of the given size holds so later pages still follow on from it,
+    //the new copy of a repeated article wins as the stored one may be out of date
+    static List<NewsArticle> merge(List<NewsArticle> delta, List<NewsArticle> stored, int pageSize) {
+        List<NewsArticle> merged = new ArrayList<>(Math.min(delta.size() + stored.size(), pageSize));
+        Set<String> urls = new HashSet<>();
+        addNew(delta, merged, urls, pageSize);
+        addNew(stored, merged, urls, pageSize);
+        return merged;
+    }
+
+    private static void addNew(List<NewsArticle> articles, List<NewsArticle> merged, Set<String> urls,
+                               int pageSize) {
+        for (NewsArticle article : articles) {
+            if (merged.size() == pageSize) {
+                return;
+            }
+            if (urls.add(article.getUrl())) {
+                merged.add(article);
+            }
+        }
+    }
+}
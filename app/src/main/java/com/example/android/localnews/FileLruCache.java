@@ -0,0 +1,146 @@
+package com.example.android.localnews;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Comparator;
+
+//disk cache of files kept under a total size, evicting the least recently used ones first,
+//for downloads like images that are stored as they are rather than parsed
+public class FileLruCache {
+
+    private static final String FILE_SUFFIX = ".bin";
+
+    //the directory the files are stored in
+    private final File mDirectory;
+
+    //the total size of the files before the least recently used ones are evicted
+    private final long mMaxSizeBytes;
+
+    //the total size of the stored files, -1 until the directory has been measured
+    private long mSizeBytes = -1;
+
+    //construct a cache storing at most maxSizeBytes in a directory of its own
+    public FileLruCache(File directory, long maxSizeBytes) {
+        mDirectory = directory;
+        mMaxSizeBytes = maxSizeBytes;
+    }
+
+    //get the stored file for a key and mark it as recently used, or null if there is none
+    public File get(String key) {
+        File file = fileFor(key);
+        if (!file.exists()) {
+            return null;
+        }
+        file.setLastModified(System.currentTimeMillis());
+        return file;
+    }
+
+    //store everything read from a stream under a key, replacing what was stored before,
+    //the caller stays responsible for closing the stream
+    public File put(String key, InputStream in) throws IOException {
+        if (!mDirectory.exists() && !mDirectory.mkdirs()) {
+            throw new IOException("Could not create " + mDirectory);
+        }
+
+        File tmp = File.createTempFile(HttpCache.keyFor(key), ".tmp", mDirectory);
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(tmp));
+        try {
+            byte[] buffer = new byte[8192];
+            int count;
+            while ((count = in.read(buffer)) != -1) {
+                out.write(buffer, 0, count);
+            }
+        } catch (IOException e) {
+            out.close();
+            tmp.delete();
+            throw e;
+        }
+        out.close();
+
+        File file = fileFor(key);
+        synchronized (this) {
+            long replaced = file.length();
+            if (!tmp.renameTo(file)) {
+                tmp.delete();
+                throw new IOException("Could not store " + key);
+            }
+            if (mSizeBytes >= 0) {
+                mSizeBytes += file.length() - replaced;
+            }
+            trim();
+        }
+        return file;
+    }
+
+    //remove the file stored under a key
+    public synchronized void remove(String key) {
+        File file = fileFor(key);
+        long length = file.length();
+        if (file.delete() && mSizeBytes >= 0) {
+            mSizeBytes -= length;
+        }
+    }
+
+    //get the total size of the stored files
+    public synchronized long getSizeBytes() {
+        measure();
+        return mSizeBytes;
+    }
+
+    //delete the least recently used files until the cache fits its size budget,
+    //only listing the directory when it has grown past the budget
+    private void trim() {
+        measure();
+        if (mSizeBytes <= mMaxSizeBytes) {
+            return;
+        }
+
+        File[] files = mDirectory.listFiles();
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File a, File b) {
+                return Long.compare(a.lastModified(), b.lastModified());
+            }
+        });
+        for (File file : files) {
+            if (mSizeBytes <= mMaxSizeBytes) {
+                break;
+            }
+            if (file.getName().endsWith(FILE_SUFFIX)) {
+                long length = file.length();
+                if (file.delete()) {
+                    mSizeBytes -= length;
+                }
+            }
+        }
+    }
+
+    //add up the stored files the first time the size is needed
+    private void measure() {
+        if (mSizeBytes >= 0) {
+            return;
+        }
+        long size = 0;
+        File[] files = mDirectory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.getName().endsWith(FILE_SUFFIX)) {
+                    size += file.length();
+                }
+            }
+        }
+        mSizeBytes = size;
+    }
+
+    private File fileFor(String key) {
+        return new File(mDirectory, HttpCache.keyFor(key) + FILE_SUFFIX);
+    }
+}
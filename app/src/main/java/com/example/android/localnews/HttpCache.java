@@ -0,0 +1,422 @@
+package com.example.android.localnews;
+
+import android.content.Context;
+import android.util.Log;
+import android.util.LruCache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+//disk cache of Guardian API responses, keeping each body together with its ETag and
+//Last-Modified validators so repeat requests for the same URL can be made conditional
+public class HttpCache {
+
+    private static final String LOG_TAG = "HttpCache: ";
+
+    //the directory inside the app's cache directory responses are stored in
+    private static final String DIRECTORY_NAME = "http";
+
+    //the total size of stored bodies before the least recently used ones are evicted
+    static final long MAX_SIZE_BYTES = 4 * 1024 * 1024;
+
+    //the number of parsed responses kept in memory so an unchanged body isn't parsed again
+    private static final int MAX_PARSED_RESULTS = 4;
+
+    private static final int META_VERSION = 1;
+    private static final String META_SUFFIX = ".meta";
+    private static final String BODY_SUFFIX = ".body";
+
+    private static final Pattern MAX_AGE = Pattern.compile("max-age=(\\d+)");
+
+    private static HttpCache sInstance;
+
+    //the directory our responses are stored in
+    private final File mDirectory;
+
+    //parsed articles of recently used entries, keyed by cache key
+    private final LruCache<String, ParsedResult> mParsedResults = new LruCache<>(MAX_PARSED_RESULTS);
+
+    //requests answered from a fresh entry without touching the network
+    private final AtomicInteger mHitCount = new AtomicInteger();
+
+    //requests the server answered with 304 Not Modified
+    private final AtomicInteger mRevalidateCount = new AtomicInteger();
+
+    //requests that had to download a full body
+    private final AtomicInteger mMissCount = new AtomicInteger();
+
+    //body bytes downloaded from the network and served from disk instead
+    private final AtomicLong mNetworkBytes = new AtomicLong();
+    private final AtomicLong mCachedBytes = new AtomicLong();
+
+    private HttpCache(File directory) {
+        mDirectory = directory;
+    }
+
+    //get the single cache shared by the whole app
+    public static synchronized HttpCache getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new HttpCache(new File(context.getCacheDir(), DIRECTORY_NAME));
+        }
+        return sInstance;
+    }
+
+    //get the stored entry for a URL, or null if there is none
+    public Entry get(String url) {
+        String key = keyFor(url);
+        File metaFile = new File(mDirectory, key + META_SUFFIX);
+        File bodyFile = new File(mDirectory, key + BODY_SUFFIX);
+        if (!metaFile.exists() || !bodyFile.exists()) {
+            return null;
+        }
+
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(metaFile)));
+            if (in.readInt() != META_VERSION || !in.readUTF().equals(url)) {
+                return null;
+            }
+            String etag = emptyToNull(in.readUTF());
+            String lastModified = emptyToNull(in.readUTF());
+            long storedAt = in.readLong();
+            long expiresAt = in.readLong();
+
+            //mark the body as recently used so it is evicted last
+            bodyFile.setLastModified(System.currentTimeMillis());
+
+            return new Entry(key, url, etag, lastModified, storedAt, expiresAt, bodyFile.length());
+        } catch (IOException e) {
+            Log.e(LOG_TAG, "Problem reading a cache entry.", e);
+            return null;
+        } finally {
+            closeQuietly(in);
+        }
+    }
+
+    //start storing a new body for a URL
+    public Editor edit(String url) throws IOException {
+        if (!mDirectory.exists() && !mDirectory.mkdirs()) {
+            throw new IOException("Could not create " + mDirectory);
+        }
+        return new Editor(keyFor(url), url, File.createTempFile(keyFor(url), ".tmp", mDirectory));
+    }
+
+    //extend the freshness of an entry after the server confirmed it is unchanged
+    public Entry refresh(Entry entry, String cacheControl) {
+        Entry refreshed = new Entry(entry.mKey, entry.mUrl, entry.mEtag, entry.mLastModified,
+                entry.mStoredAt, expiresAt(cacheControl), entry.mBodyLength);
+        try {
+            writeMeta(refreshed);
+        } catch (IOException e) {
+            Log.e(LOG_TAG, "Problem refreshing a cache entry.", e);
+        }
+        return refreshed;
+    }
+
+    //get the articles of a stored response, reusing the parsed list if we still have it
+    public List<NewsArticle> getArticles(Entry entry) throws IOException {
+        ParsedResult parsed = mParsedResults.get(entry.mKey);
+        if (parsed != null && parsed.mStoredAt == entry.mStoredAt) {
+            return parsed.mArticles;
+        }
+
+        InputStream in = new FileInputStream(new File(mDirectory, entry.mKey + BODY_SUFFIX));
+        try {
+            List<NewsArticle> articles = NewsArticleParser.parse(in);
+            return putArticles(entry, articles);
+        } finally {
+            in.close();
+        }
+    }
+
+    //remember the parsed articles of an entry, returning the list callers should share
+    public List<NewsArticle> putArticles(Entry entry, List<NewsArticle> articles) {
+        List<NewsArticle> shared = Collections.unmodifiableList(articles);
+        mParsedResults.put(entry.mKey, new ParsedResult(entry.mStoredAt, shared));
+        return shared;
+    }
+
+    //count a request served from a fresh entry
+    public void recordHit(Entry entry) {
+        mHitCount.incrementAndGet();
+        mCachedBytes.addAndGet(entry.mBodyLength);
+    }
+
+    //count a request the server answered with 304 Not Modified
+    public void recordRevalidation(Entry entry) {
+        mRevalidateCount.incrementAndGet();
+        mCachedBytes.addAndGet(entry.mBodyLength);
+    }
+
+    //count a request that downloaded a full body
+    public void recordMiss(Entry entry) {
+        mMissCount.incrementAndGet();
+        mNetworkBytes.addAndGet(entry.mBodyLength);
+    }
+
+    public int getHitCount() {
+        return mHitCount.get();
+    }
+
+    public int getRevalidateCount() {
+        return mRevalidateCount.get();
+    }
+
+    public int getMissCount() {
+        return mMissCount.get();
+    }
+
+    public long getNetworkBytes() {
+        return mNetworkBytes.get();
+    }
+
+    public long getCachedBytes() {
+        return mCachedBytes.get();
+    }
+
+    //a one line summary of the cache counters for the logs
+    public String getStatsSummary() {
+        return "hits=" + getHitCount() + " revalidated=" + getRevalidateCount() + " misses=" + getMissCount()
+                + " networkBytes=" + getNetworkBytes() + " cachedBytes=" + getCachedBytes();
+    }
+
+    //work out when a response stops being fresh from its Cache-Control header
+    static long expiresAt(String cacheControl) {
+        if (cacheControl == null || cacheControl.contains("no-cache") || cacheControl.contains("no-store")) {
+            return 0;
+        }
+        Matcher matcher = MAX_AGE.matcher(cacheControl);
+        if (!matcher.find()) {
+            return 0;
+        }
+        return System.currentTimeMillis() + Long.parseLong(matcher.group(1)) * 1000;
+    }
+
+    private void writeMeta(Entry entry) throws IOException {
+        File tmp = File.createTempFile(entry.mKey, META_SUFFIX, mDirectory);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+        try {
+            out.writeInt(META_VERSION);
+            out.writeUTF(entry.mUrl);
+            out.writeUTF(entry.mEtag == null ? "" : entry.mEtag);
+            out.writeUTF(entry.mLastModified == null ? "" : entry.mLastModified);
+            out.writeLong(entry.mStoredAt);
+            out.writeLong(entry.mExpiresAt);
+        } finally {
+            out.close();
+        }
+        if (!tmp.renameTo(new File(mDirectory, entry.mKey + META_SUFFIX))) {
+            tmp.delete();
+            throw new IOException("Could not store cache metadata");
+        }
+    }
+
+    //delete the least recently used bodies until the cache fits its size budget
+    private void trim() {
+        File[] bodies = mDirectory.listFiles();
+        if (bodies == null) {
+            return;
+        }
+
+        long size = 0;
+        for (File file : bodies) {
+            size += file.length();
+        }
+        if (size <= MAX_SIZE_BYTES) {
+            return;
+        }
+
+        Arrays.sort(bodies, new Comparator<File>() {
+            @Override
+            public int compare(File a, File b) {
+                return Long.compare(a.lastModified(), b.lastModified());
+            }
+        });
+        for (File file : bodies) {
+            if (size <= MAX_SIZE_BYTES) {
+                break;
+            }
+            if (file.getName().endsWith(BODY_SUFFIX)) {
+                String key = file.getName().substring(0, file.getName().length() - BODY_SUFFIX.length());
+                File metaFile = new File(mDirectory, key + META_SUFFIX);
+                size -= file.length() + metaFile.length();
+                file.delete();
+                metaFile.delete();
+                mParsedResults.remove(key);
+            }
+        }
+    }
+
+    //hash a URL into a file name
+    static String keyFor(String url) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(url.getBytes(Charset.forName("UTF-8")));
+            StringBuilder key = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                key.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return key.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+
+    private static void closeQuietly(InputStream in) {
+        if (in != null) {
+            try {
+                in.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    //a stored response and the validators it was served with
+    public static class Entry {
+        private final String mKey;
+        private final String mUrl;
+        private final String mEtag;
+        private final String mLastModified;
+        private final long mStoredAt;
+        private final long mExpiresAt;
+        private final long mBodyLength;
+
+        Entry(String key, String url, String etag, String lastModified, long storedAt, long expiresAt,
+              long bodyLength) {
+            mKey = key;
+            mUrl = url;
+            mEtag = etag;
+            mLastModified = lastModified;
+            mStoredAt = storedAt;
+            mExpiresAt = expiresAt;
+            mBodyLength = bodyLength;
+        }
+
+        //get the ETag the response was served with, or null
+        public String getEtag() {
+            return mEtag;
+        }
+
+        //get the Last-Modified date the response was served with, or null
+        public String getLastModified() {
+            return mLastModified;
+        }
+
+        //whether the entry can still be used without asking the server
+        public boolean isFresh() {
+            return System.currentTimeMillis() < mExpiresAt;
+        }
+    }
+
+    //writes a body to a temporary file while it is being parsed, then publishes it
+    public class Editor {
+        private final String mKey;
+        private final String mUrl;
+        private final File mTmpFile;
+        private final OutputStream mOut;
+        private InputStream mSource;
+
+        private Editor(String key, String url, File tmpFile) throws IOException {
+            mKey = key;
+            mUrl = url;
+            mTmpFile = tmpFile;
+            mOut = new BufferedOutputStream(new FileOutputStream(tmpFile));
+        }
+
+        //wrap a response stream so every byte read from it is also written to the cache,
+        //the caller stays responsible for closing the response stream itself
+        public InputStream newSource(InputStream source) {
+            mSource = new FilterInputStream(source) {
+                @Override
+                public int read() throws IOException {
+                    int b = super.read();
+                    if (b != -1) {
+                        mOut.write(b);
+                    }
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int count) throws IOException {
+                    int read = super.read(buffer, offset, count);
+                    if (read > 0) {
+                        mOut.write(buffer, offset, read);
+                    }
+                    return read;
+                }
+
+                @Override
+                public void close() {
+                    //closing the parser must not close the response before commit() has drained it
+                }
+            };
+            return mSource;
+        }
+
+        //publish the body with the validators of the response it came from
+        public Entry commit(String etag, String lastModified, String cacheControl) throws IOException {
+            //the parser may stop before trailing whitespace, keep the stored body complete
+            if (mSource != null) {
+                byte[] buffer = new byte[1024];
+                while (mSource.read(buffer, 0, buffer.length) != -1) {
+                    //draining into the cache file
+                }
+            }
+            mOut.close();
+            File bodyFile = new File(mDirectory, mKey + BODY_SUFFIX);
+            if (!mTmpFile.renameTo(bodyFile)) {
+                abort();
+                throw new IOException("Could not store cache body");
+            }
+
+            Entry entry = new Entry(mKey, mUrl, etag, lastModified, System.currentTimeMillis(),
+                    expiresAt(cacheControl), bodyFile.length());
+            writeMeta(entry);
+            trim();
+            return entry;
+        }
+
+        //throw away a body that could not be read completely
+        public void abort() {
+            try {
+                mOut.close();
+            } catch (IOException ignored) {
+            }
+            mTmpFile.delete();
+        }
+    }
+
+    //articles parsed from the body stored at a given time
+    private static class ParsedResult {
+        private final long mStoredAt;
+        private final List<NewsArticle> mArticles;
+
+        ParsedResult(long storedAt, List<NewsArticle> articles) {
+            mStoredAt = storedAt;
+            mArticles = articles;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.android.localnews;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+//records how long launches take to show fresh articles, split into warm launches that
+//found a recently prefetched result in the store and cold ones that had to wait for the network
+public final class LaunchMetrics {
+
+    private static final String PREFS_NAME = "launch_metrics";
+
+    private static final String KEY_WARM_COUNT = "warm_count";
+    private static final String KEY_WARM_TOTAL_MILLIS = "warm_total_millis";
+    private static final String KEY_COLD_COUNT = "cold_count";
+    private static final String KEY_COLD_TOTAL_MILLIS = "cold_total_millis";
+
+    private LaunchMetrics() {
+    }
+
+    //add the time to first content of a launch to the running totals
+    public static void record(Context context, boolean warm, long millis) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        String countKey = warm ? KEY_WARM_COUNT : KEY_COLD_COUNT;
+        String totalKey = warm ? KEY_WARM_TOTAL_MILLIS : KEY_COLD_TOTAL_MILLIS;
+        prefs.edit()
+                .putInt(countKey, prefs.getInt(countKey, 0) + 1)
+                .putLong(totalKey, prefs.getLong(totalKey, 0) + millis)
+                .apply();
+
+        Log.i("LaunchMetrics: ", (warm ? "warm" : "cold") + " launch showed content after " + millis + " ms, "
+                + getSummary(context));
+    }
+
+    //describe the average time to first content of warm and cold launches
+    public static String getSummary(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        return "warm " + describe(prefs.getInt(KEY_WARM_COUNT, 0), prefs.getLong(KEY_WARM_TOTAL_MILLIS, 0))
+                + ", cold " + describe(prefs.getInt(KEY_COLD_COUNT, 0), prefs.getLong(KEY_COLD_TOTAL_MILLIS, 0));
+    }
+
+    private static String describe(int count, long totalMillis) {
+        if (count == 0) {
+            return "no launches";
+        }
+        return count + " launches averaging " + (totalMillis / count) + " ms";
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.android.localnews;
+
+import android.content.AsyncTaskLoader;
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.List;
+
+//loader searching the articles already on the device for a query,
+//used to answer a new query instantly and offline
+public class LocalSearchLoader extends AsyncTaskLoader<List<NewsArticle>> {
+
+    //the most local matches shown for a query
+    static final int MAX_MATCHES = 100;
+
+    //the query searched for
+    private final NewsQuery mQuery;
+
+    //construct a new loader for a given query
+    public LocalSearchLoader(Context context, NewsQuery query) {
+        super(context);
+        mQuery = query;
+    }
+
+    //search for the data set
+    @Override
+    protected void onStartLoading() {
+        forceLoad();
+    }
+
+    //search the index on a background thread
+    @Override
+    public List<NewsArticle> loadInBackground() {
+        long start = SystemClock.elapsedRealtime();
+        List<NewsArticle> matches = ArticleStore.getInstance(getContext()).searchArticles(mQuery, MAX_MATCHES);
+        Log.d("LocalSearchLoader: ", matches.size() + " local matches in "
+                + (SystemClock.elapsedRealtime() - start) + " ms");
+        return matches;
+    }
+}
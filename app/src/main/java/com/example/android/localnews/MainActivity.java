@@ -1,57 +1,149 @@
 package com.example.android.localnews;
 
 import android.app.LoaderManager;
-import android.content.Context;
+import android.content.DialogInterface;
 import android.content.Intent;
 import android.content.Loader;
 import android.content.SharedPreferences;
-import android.net.ConnectivityManager;
-import android.net.NetworkInfo;
-import android.net.Uri;
+import android.database.DataSetObserver;
+import android.os.AsyncTask;
 import android.os.Bundle;
+import android.os.SystemClock;
 import android.preference.PreferenceManager;
+import android.util.Log;
+import android.support.v7.app.AlertDialog;
 import android.support.v7.app.AppCompatActivity;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
+import android.view.ViewTreeObserver;
+import android.widget.AbsListView;
 import android.widget.AdapterView;
 import android.widget.ListView;
 import android.widget.ProgressBar;
 import android.widget.TextView;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 public class MainActivity extends AppCompatActivity implements LoaderManager.LoaderCallbacks<List<NewsArticle>>,
-        SharedPreferences.OnSharedPreferenceChangeListener {
-
-    //our news article request URL
-    private static final String REQUEST_URL = "https://content.guardianapis.com/search";
+        SharedPreferences.OnSharedPreferenceChangeListener, NetworkPolicy.Listener {
 
     //the ID of our loader
     private static final int LOADER_ID = 1;
 
+    //the ID of the loader reading the stored result of the current query
+    private static final int STORE_LOADER_ID = 2;
+
+    //the ID of the loader fetching further pages of the current query
+    private static final int PAGE_LOADER_ID = 3;
+
+    //the ID of the loader searching the articles already on the device
+    private static final int SEARCH_LOADER_ID = 4;
+
+    //the file the fetch metrics are exported to, in the app's external files directory
+    private static final String METRICS_FILE_NAME = "fetch_metrics.tsv";
+
+    //the bundle key holding the page number for the page loader
+    private static final String ARG_PAGE = "page";
+
+    //the bundle key holding the page size for the page loader
+    private static final String ARG_PAGE_SIZE = "page_size";
+
+    //the bundle key holding how long a restarted loader waits before fetching
+    private static final String ARG_DEBOUNCE_MILLIS = "debounce_millis";
+
     //our news article adapter
     private NewsArticleAdapter mAdapter;
 
     //TextView to display if our list is empty
     private TextView emptyStateTextView;
 
+    //the list showing the articles
+    private ListView mListView;
+
+    //whether the network result of the current query has been shown,
+    //so a late stored result doesn't replace it
+    private boolean mHaveFreshResult;
+
+    //the next page of the current query to request as the user scrolls
+    private int mNextPage = 2;
+
+    //whether pages after the first have been added to the list, the page number alone doesn't
+    //tell once the page size has grown
+    private boolean mPagesAppended;
+
+    //whether a page request is in flight, so scrolling doesn't start another one
+    private boolean mPageLoading;
+
+    //whether the last page of the current query has been reached
+    private boolean mLastPageLoaded;
+
+    //asks for a page again that the request budget held back, once the budget allows it
+    private final Runnable mRetryPage = new Runnable() {
+        @Override
+        public void run() {
+            loadNextPage();
+        }
+    };
+
+    //the page size the next page of the list is fetched with, starting at the size of the first page
+    //and only growing where a larger page starts right after the rows already loaded,
+    //so no article falls between two pages
+    private int mPageSize = NewsQuery.DEFAULT_PAGE_SIZE;
+
+    //follows the network to size pages and resume fetches when connectivity returns
+    private NetworkPolicy mNetworkPolicy;
+
+    //whether the first page couldn't be fetched and should be once the network is back
+    private boolean mFetchPending;
+
+    //the order the list shown was fetched in, or null before anything is shown, a list fetched
+    //by relevance can be shown newest first without fetching it again but not the other way round
+    private String mFetchedOrderBy;
+
+    //the stored result and the local search matches of the current query,
+    //shown together until the network has answered
+    private List<NewsArticle> mStoredArticles = Collections.emptyList();
+    private List<NewsArticle> mLocalMatches = Collections.emptyList();
+
+    //when this launch started, or 0 once its first fresh content has been timed
+    private long mLaunchStartMillis;
+
+    //whether the next bind of the list is already being timed
+    private boolean mBindTimed;
+
+    //records the frames of the list as it scrolls, while the user has it turned on
+    private ScrollMonitor mScrollMonitor;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
 
+        //only time real launches, not an activity recreated for a configuration change
+        if (savedInstanceState == null) {
+            mLaunchStartMillis = SystemClock.elapsedRealtime();
+        }
+
         emptyStateTextView = (TextView) findViewById(R.id.empty_list);
 
         // Find a reference to the ListView in the layout
         ListView newsArticleListView = (ListView) findViewById(R.id.list);
+        mListView = newsArticleListView;
         newsArticleListView.setEmptyView(emptyStateTextView);
+        mScrollMonitor = new ScrollMonitor(this);
 
         //check for an internet connection
-        ConnectivityManager cm = (ConnectivityManager) this.getSystemService(Context.CONNECTIVITY_SERVICE);
-        NetworkInfo activeNetwork = cm.getActiveNetworkInfo();
-        boolean isConnected = activeNetwork != null && activeNetwork.isConnectedOrConnecting();
+        mNetworkPolicy = new NetworkPolicy(this, this);
+        boolean isConnected = mNetworkPolicy.getLink() != NetworkPolicy.Link.OFFLINE;
 
         // Create a new adapter that takes an empty list of news articles as input
         mAdapter = new NewsArticleAdapter(this, new ArrayList<NewsArticle>());
@@ -60,31 +152,65 @@ public class MainActivity extends AppCompatActivity implements LoaderManager.Loa
         // so the list can be populated in the user interface
         newsArticleListView.setAdapter(mAdapter);
 
+        // Stop loading the thumbnails of rows that scroll off screen
+        newsArticleListView.setRecyclerListener(mAdapter);
+
+        // Time how long the list takes to bind its rows whenever the articles shown change,
+        // rows read from the store as the user scrolls included
+        mAdapter.registerDataSetObserver(new DataSetObserver() {
+            @Override
+            public void onChanged() {
+                timeBind();
+            }
+        });
+
+        // Request the next page a few rows before the user reaches the end of the list,
+        // further ahead the cheaper and faster the network is
+        newsArticleListView.setOnScrollListener(new AbsListView.OnScrollListener() {
+            @Override
+            public void onScrollStateChanged(AbsListView view, int scrollState) {
+                mScrollMonitor.onScrollStateChanged(scrollState);
+            }
+
+            @Override
+            public void onScroll(AbsListView view, int firstVisibleItem, int visibleItemCount, int totalItemCount) {
+                if (totalItemCount > 0 && isNearEnd(firstVisibleItem + visibleItemCount, totalItemCount)) {
+                    loadNextPage();
+                }
+            }
+        });
+
         // Obtain a reference to the SharedPreferences file for this app
         SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(this);
         // And register to be notified of preference changes
         // So we know when the user has adjusted the query settings
         prefs.registerOnSharedPreferenceChangeListener(this);
 
-        // Set an item click listener on the ListView, which sends an intent to a web browser
-        // to open a website with more information about the selected newsarticle.
+        // Set an item click listener on the ListView, which opens the selected newsarticle
+        // in the in-app reader, instantly if its body was prefetched.
         newsArticleListView.setOnItemClickListener(new AdapterView.OnItemClickListener() {
             @Override
             public void onItemClick(AdapterView<?> adapterView, View view, int position, long l) {
                 // Find the current newsarticle that was clicked on
                 NewsArticle currentNewsArticle = mAdapter.getItem(position);
 
-                // Convert the String URL into a URI object (to pass into the Intent constructor)
-                Uri newsarticleUri = Uri.parse(currentNewsArticle.getUrl());
-
-                // Create a new intent to view the news article URI
-                Intent websiteIntent = new Intent(Intent.ACTION_VIEW, newsarticleUri);
+                // A row still being read from the store has nothing to open yet
+                if (currentNewsArticle == null) {
+                    return;
+                }
 
-                // Send the intent to launch a new activity
-                startActivity(websiteIntent);
+                // Send the intent to launch the reader
+                startActivity(ArticleActivity.newIntent(MainActivity.this, currentNewsArticle));
             }
         });
 
+        //keep the stored result fresh in the background so the next launch needn't wait for the network
+        PrefetchJobService.schedule(this);
+
+        //show the stored result of the last fetch right away, whether we are online or not
+        getLoaderManager().initLoader(STORE_LOADER_ID, null, this);
+        getLoaderManager().initLoader(SEARCH_LOADER_ID, null, this);
+
         //only try to load content if there is an internet connection
         // otherwise, warn the user there is no connection
         if (isConnected) {
@@ -95,86 +221,437 @@ public class MainActivity extends AppCompatActivity implements LoaderManager.Loa
 
             TextView emptyView = (TextView) findViewById(R.id.empty_list);
             emptyView.setText(R.string.no_connection);
+            mFetchPending = true;
         }
     }
 
+    //follow the network, and the frames of the list if the user asked for it, while we're visible
     @Override
-    public void onSharedPreferenceChanged(SharedPreferences prefs, String key) {
-        if (key.equals(getString(R.string.settings_search_term_key))) {
-            //clear our ListView as a new query will be started
-            mAdapter.clear();
+    protected void onStart() {
+        super.onStart();
+        mNetworkPolicy.start();
+        if (isScrollMonitorOn()) {
+            mScrollMonitor.start();
+        }
+    }
 
-            //hide our empty state text view because a loading indicator will be displayed
-            emptyStateTextView.setVisibility(View.GONE);
+    @Override
+    protected void onStop() {
+        mNetworkPolicy.stop();
+        mScrollMonitor.stop();
+        //a held back page is asked for again by scrolling once we're back
+        mListView.removeCallbacks(mRetryPage);
+        super.onStop();
+    }
 
-            //show the loading indicator while we fetch new data
-            View loadingIndicator = findViewById(R.id.loading_spinner);
-            loadingIndicator.setVisibility(View.VISIBLE);
+    //whether the user turned on the scroll monitor
+    private boolean isScrollMonitorOn() {
+        return PreferenceManager.getDefaultSharedPreferences(this)
+                .getBoolean(getString(R.string.monitor_scrolling_key), false);
+    }
 
-            //restart the loader to requery the server since the query settings have been changed
+    //the network has changed, send the fetches that were waiting for it
+    @Override
+    public void onLinkChanged(NetworkPolicy.Link link) {
+        if (link == NetworkPolicy.Link.OFFLINE) {
+            return;
+        }
+
+        if (mFetchPending) {
+            mFetchPending = false;
+            emptyStateTextView.setText("");
+            findViewById(R.id.loading_spinner).setVisibility(View.VISIBLE);
             getLoaderManager().restartLoader(LOADER_ID, null, this);
+            return;
+        }
+
+        //a page that failed while we were offline is asked for again if the user is waiting at the end
+        int count = mAdapter.getCount();
+        if (count > 0 && isNearEnd(mListView.getLastVisiblePosition() + 1, count)) {
+            loadNextPage();
         }
     }
 
-    //no loader exists so create a new one
+    //whether the rows shown up to a position are close enough to the end of the list
+    //to request the next page on the current network
+    private boolean isNearEnd(int shownCount, int totalCount) {
+        return shownCount >= totalCount - mNetworkPolicy.getLink().getPrefetchRows();
+    }
+
     @Override
-    public Loader<List<NewsArticle>> onCreateLoader(int i, Bundle bundle) {
+    public void onSharedPreferenceChanged(SharedPreferences prefs, String key) {
+        if (key.equals(getString(R.string.settings_search_term_key))) {
+            //a new search term has sections of its own
+            showSection(null);
+            restartQuery();
+        } else if (key.equals(getString(R.string.settings_order_by_key))) {
+            String orderBy = prefs.getString(key, getString(R.string.settings_order_by_default));
+
+            //the articles on the device can be sorted by date, but only the server scores relevance
+            if (mFetchedOrderBy != null
+                    && (NewsQuery.ORDER_BY_NEWEST.equals(orderBy) || orderBy.equals(mFetchedOrderBy))) {
+                showOrder(orderBy);
+            } else {
+                restartQuery();
+            }
+        }
+    }
 
-        //get the default preferences
-        SharedPreferences sharedPrefs = PreferenceManager.getDefaultSharedPreferences(this);
+    //start the current query over from the store and the server
+    private void restartQuery() {
+        //clear our ListView as a new query will be started
+        mAdapter.clear();
 
-        String searchTerm = sharedPrefs.getString(
-                getString(R.string.settings_search_term_key),
-                getString(R.string.settings_search_term_default));
+        //hide our empty state text view because a loading indicator will be displayed
+        emptyStateTextView.setVisibility(View.GONE);
+
+        //show the loading indicator while we fetch new data
+        View loadingIndicator = findViewById(R.id.loading_spinner);
+        loadingIndicator.setVisibility(View.VISIBLE);
+
+        //restart the loaders to requery the store and the server since the query settings have been changed
+        mHaveFreshResult = false;
+        mFetchPending = false;
+        mFetchedOrderBy = null;
+        mLaunchStartMillis = 0;
+        mStoredArticles = Collections.emptyList();
+        mLocalMatches = Collections.emptyList();
+        resetPaging();
+        getLoaderManager().restartLoader(STORE_LOADER_ID, null, this);
+        getLoaderManager().restartLoader(SEARCH_LOADER_ID, null, this);
+        //the fetch waits briefly so a quick series of changes only makes one request,
+        //restarting also cancels the request of the previous query
+        Bundle args = new Bundle();
+        args.putLong(ARG_DEBOUNCE_MILLIS, NewsArticleLoader.QUERY_CHANGE_DEBOUNCE_MILLIS);
+        getLoaderManager().restartLoader(LOADER_ID, args, this);
+    }
 
-        String orderBy = sharedPrefs.getString(
-                getString(R.string.settings_order_by_key),
-                getString(R.string.settings_order_by_default)
-        );
+    //show the list in an order, sorting it by date on the device if it was fetched by relevance
+    private void showOrder(String orderBy) {
+        boolean sortByDate = NewsQuery.ORDER_BY_NEWEST.equals(orderBy) && !orderBy.equals(mFetchedOrderBy);
+        mAdapter.setView(mAdapter.getSection(), sortByDate);
+    }
 
-        //parse our base URI string
-        Uri baseUri = Uri.parse(REQUEST_URL);
+    //narrow the list to a section, or show all of it if the section is null
+    private void showSection(String section) {
+        String orderBy = NewsQuery.fromPreferences(this).getOrderBy();
+        mAdapter.setView(section, NewsQuery.ORDER_BY_NEWEST.equals(orderBy) && !orderBy.equals(mFetchedOrderBy));
+        if (getSupportActionBar() != null) {
+            getSupportActionBar().setSubtitle(section);
+        }
+    }
 
-        //prepare our baseURI so that we can add parameters
-        Uri.Builder uriBuilder = baseUri.buildUpon();
+    //offer the sections of the list with the number of articles in each
+    private void chooseSection() {
+        mAdapter.loadSections(new ArticleWindow.SectionsListener() {
+            @Override
+            public void onSectionsLoaded(Map<String, Integer> sections) {
+                if (isFinishing()) {
+                    return;
+                }
+                final List<String> choices = new ArrayList<>();
+                List<String> labels = new ArrayList<>();
+                choices.add(null);
+                labels.add(getString(R.string.all_sections_label, mAdapter.getTotalCount()));
+                for (Map.Entry<String, Integer> section : sections.entrySet()) {
+                    choices.add(section.getKey());
+                    labels.add(getString(R.string.section_label, section.getKey(), section.getValue()));
+                }
+                new AlertDialog.Builder(MainActivity.this)
+                        .setTitle(R.string.filter_section_menu_item)
+                        .setItems(labels.toArray(new String[labels.size()]), new DialogInterface.OnClickListener() {
+                            @Override
+                            public void onClick(DialogInterface dialog, int which) {
+                                showSection(choices.get(which));
+                            }
+                        })
+                        .show();
+            }
+        });
+    }
 
-        //grab our API key
-        String apiKey = BuildConfig.THE_GUARDIAN_API_KEY;
+    //no loader exists so create a new one
+    @Override
+    public Loader<List<NewsArticle>> onCreateLoader(int id, Bundle bundle) {
 
-        //append our query parameters to our baseURI
-        uriBuilder.appendQueryParameter("q", searchTerm);
-        uriBuilder.appendQueryParameter("api-key", apiKey);
-        uriBuilder.appendQueryParameter("show-tags", "contributor");
-        uriBuilder.appendQueryParameter("page-size", "50");
-        uriBuilder.appendQueryParameter("order-by", orderBy);
+        //build our query from the current settings
+        NewsQuery query = NewsQuery.fromPreferences(this);
 
-        return new NewsArticleLoader(MainActivity.this, uriBuilder.toString());
+        if (id == STORE_LOADER_ID) {
+            return new StoredArticleLoader(MainActivity.this, query);
+        }
+        if (id == SEARCH_LOADER_ID) {
+            return new LocalSearchLoader(MainActivity.this, query);
+        }
+        if (id == PAGE_LOADER_ID) {
+            //further pages continue the list in the order it was fetched in
+            NewsQuery pageQuery = NewsQuery.fromPreferences(this, bundle.getInt(ARG_PAGE_SIZE))
+                    .withOrderBy(mFetchedOrderBy);
+            return new NewsArticleLoader(MainActivity.this, pageQuery, bundle.getInt(ARG_PAGE), 0);
+        }
+        long debounceMillis = bundle == null ? 0 : bundle.getLong(ARG_DEBOUNCE_MILLIS);
+        return new NewsArticleLoader(MainActivity.this, query, 1, debounceMillis);
     }
 
     //loader has finished fetching content so go ahead and update the UI with the news articles
     @Override
     public void onLoadFinished(Loader<List<NewsArticle>> loader, List<NewsArticle> newsArticles) {
+        if (loader.getId() == PAGE_LOADER_ID) {
+            NewsArticleLoader pageLoader = (NewsArticleLoader) loader;
+            appendPage(pageLoader.getPage(), newsArticles, pageLoader.isLastPage());
+            return;
+        }
+
+        if (loader.getId() == SEARCH_LOADER_ID) {
+            mLocalMatches = newsArticles;
+            showLocalArticles();
+            return;
+        }
+
+        if (loader.getId() == STORE_LOADER_ID) {
+            mStoredArticles = newsArticles;
+            if (!showLocalArticles()) {
+                return;
+            }
+
+            //a result the background prefetch refreshed recently counts as fresh content
+            long fetchedAt = ((StoredArticleLoader) loader).getFetchedAt();
+            if (System.currentTimeMillis() - fetchedAt < PrefetchJobService.REFRESH_INTERVAL_MILLIS) {
+                recordFirstContent(true);
+            }
+            return;
+        }
+
         ProgressBar progressBar = (ProgressBar) findViewById(R.id.loading_spinner);
         progressBar.setVisibility(View.GONE);
 
         TextView emptyView = (TextView) findViewById(R.id.empty_list);
         emptyView.setText(R.string.no_content);
 
-        // Clear the adapter of previous news article data
-        mAdapter.clear();
+        // If the fetch failed, keep showing whatever stored articles we already have,
+        // and say so if it was because the server is throttling us or we're offline,
+        // in which case the fetch is sent again once the network is back
+        if (newsArticles == null) {
+            if (Utilities.getRequestBudget().isThrottled()) {
+                emptyView.setText(R.string.rate_limited);
+            } else if (NetworkPolicy.getLink(this) == NetworkPolicy.Link.OFFLINE) {
+                emptyView.setText(R.string.no_connection);
+                mFetchPending = true;
+            }
+            return;
+        }
+        mHaveFreshResult = true;
+        recordFirstContent(false);
+
+        //have the bodies of the top articles fetched once we're on an unmetered network
+        PrefetchJobService.scheduleBodyPrefetch(this);
+
+        //articles on the device that match the query but weren't fetched are kept in the list
+        NewsArticleLoader networkLoader = (NewsArticleLoader) loader;
+        String orderBy = networkLoader.getQuery().getOrderBy();
+        newsArticles = QueryFanOut.mergeLocal(newsArticles, mLocalMatches, orderBy);
+
+        //keep the pages the user has already scrolled through if the first page hasn't changed
+        boolean sameOrder = orderBy.equals(mFetchedOrderBy);
+        if (mPagesAppended && sameOrder && mAdapter.startsWith(newsArticles)) {
+            return;
+        }
+
+        //newer articles at the head of a newest first list only push the loaded pages down,
+        //so they are put in front of them, later pages then overlap the list but never skip an article
+        if (mPagesAppended && sameOrder && NewsQuery.ORDER_BY_NEWEST.equals(orderBy)) {
+            mAdapter.prependArticles(newsArticles);
+            return;
+        }
+
+        //a changed first page starts paging over, with the page size it was fetched with
+        resetPaging();
+        mPageSize = networkLoader.getQuery().getPageSize();
+        mFetchedOrderBy = orderBy;
+        showOrder(NewsQuery.fromPreferences(this).getOrderBy());
+        applyArticles(newsArticles);
+        mLastPageLoaded = networkLoader.isLastPage();
+    }
+
+    //show the stored result of the query together with its local search matches,
+    //returns false if there is nothing to show or the network has already answered
+    private boolean showLocalArticles() {
+        if (mHaveFreshResult || (mStoredArticles.isEmpty() && mLocalMatches.isEmpty())) {
+            return false;
+        }
+
+        //show the articles on the device while the network result is on its way
+        ProgressBar progressBar = (ProgressBar) findViewById(R.id.loading_spinner);
+        progressBar.setVisibility(View.GONE);
+
+        mFetchedOrderBy = NewsQuery.fromPreferences(this).getOrderBy();
+        showOrder(mFetchedOrderBy);
+        applyArticles(QueryFanOut.mergeLocal(mStoredArticles, mLocalMatches, mFetchedOrderBy));
+        return true;
+    }
+
+    //record how long this launch took to show fresh articles, the first time it does
+    private void recordFirstContent(boolean warm) {
+        if (mLaunchStartMillis == 0) {
+            return;
+        }
+        LaunchMetrics.record(this, warm, SystemClock.elapsedRealtime() - mLaunchStartMillis);
+        mLaunchStartMillis = 0;
+    }
+
+    //start fetching the next page of the current query, unless one is already on its way
+    private void loadNextPage() {
+        if (!mHaveFreshResult || mPageLoading || mLastPageLoaded
+                || mNetworkPolicy.getLink() == NetworkPolicy.Link.OFFLINE) {
+            return;
+        }
+
+        //stop paging once the list holds as many articles as we are willing to keep on the device
+        if (mAdapter.getTotalCount() >= getResources().getInteger(R.integer.max_loaded_articles)) {
+            mLastPageLoaded = true;
+            return;
+        }
+
+        growPageSize();
+        mPageLoading = true;
+        Bundle args = new Bundle();
+        args.putInt(ARG_PAGE, mNextPage);
+        args.putInt(ARG_PAGE_SIZE, mPageSize);
+        getLoaderManager().restartLoader(PAGE_LOADER_ID, args, this);
+    }
+
+    //fetch larger pages once the first one is shown, up to what the network can deliver ahead
+    //of the user, moving to the largest of the page sizes whose whole pages the rows loaded fill,
+    //so every request asks for one of the fixed sizes the caches are keyed by
+    private void growPageSize() {
+        int loaded = (mNextPage - 1) * mPageSize;
+        int target = NetworkPolicy.getLaterPageSize(this);
+        for (int size : NetworkPolicy.PAGE_SIZES) {
+            if (size > mPageSize && size <= target && loaded % size == 0) {
+                mPageSize = size;
+            }
+        }
+        mNextPage = loaded / mPageSize + 1;
+    }
+
+    //add a further page of articles to the end of the list
+    private void appendPage(int page, List<NewsArticle> newsArticles, boolean lastPage) {
+        //ignore a page that belonged to an earlier query or was already added
+        if (!mPageLoading || page != mNextPage) {
+            return;
+        }
+        mPageLoading = false;
+
+        //a failed request usually means we asked past the last page,
+        //unless the network went away, then the page is asked for again once it's back
+        if (newsArticles == null && NetworkPolicy.getLink(this) == NetworkPolicy.Link.OFFLINE) {
+            return;
+        }
 
-        // If there is a valid list of ews articles, then add them to the adapter's
-        // data set. This will trigger the ListView to update.
-        if (newsArticles != null && !newsArticles.isEmpty()) {
-            mAdapter.addAll(newsArticles);
+        //or the request budget held it back or the server throttled us, then it is asked for again
+        //as soon as the budget allows
+        if (newsArticles == null) {
+            RequestBudget budget = Utilities.getRequestBudget();
+            long wait = budget.millisUntilAvailable(RequestBudget.Priority.FOREGROUND);
+            if (wait > 0 || budget.isThrottled()) {
+                mListView.removeCallbacks(mRetryPage);
+                mListView.postDelayed(mRetryPage, Math.max(wait, RequestBudget.BASE_BACKOFF_MILLIS));
+                return;
+            }
+        }
+        if (newsArticles == null || lastPage) {
+            mLastPageLoaded = true;
         }
+        if (newsArticles == null) {
+            return;
+        }
+        mNextPage++;
+        mPagesAppended = true;
+
+        //articles repeated from an earlier page are left out as the page is written to the store
+        mAdapter.appendArticles(newsArticles);
+    }
+
+    //forget the paging state of the previous query
+    private void resetPaging() {
+        getLoaderManager().destroyLoader(PAGE_LOADER_ID);
+        mListView.removeCallbacks(mRetryPage);
+        mNextPage = 2;
+        mPagesAppended = false;
+        mPageLoading = false;
+        mLastPageLoaded = false;
+    }
+
+    //replace the adapter contents with a list of articles,
+    //only rebinding the rows whose article has changed
+    private void applyArticles(List<NewsArticle> newsArticles) {
+        mAdapter.setArticles(newsArticles);
+    }
+
+    //record how long the list takes to bind the rows of a changed adapter,
+    //which happens in the layout pass just before the next frame is drawn,
+    //several changes before one frame are bound together so they are timed once
+    private void timeBind() {
+        if (mBindTimed) {
+            return;
+        }
+        mBindTimed = true;
+        final long start = System.nanoTime();
+        mListView.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                mListView.getViewTreeObserver().removeOnPreDrawListener(this);
+                mBindTimed = false;
+                FetchMetrics.record(FetchMetrics.Stage.BIND, (System.nanoTime() - start) / 1000);
+                return true;
+            }
+        });
+    }
 
+    //write the fetch and scroll metrics to logcat and to a file that can be pulled off the device
+    private void exportMetrics() {
+        File directory = getExternalFilesDir(null);
+        final File file = new File(directory != null ? directory : getFilesDir(), METRICS_FILE_NAME);
+        AsyncTask.execute(new Runnable() {
+            @Override
+            public void run() {
+                StringBuilder metrics = new StringBuilder();
+                try {
+                    FetchMetrics.export(metrics);
+                    ScrollMetrics.export(metrics);
+                    Log.i("MainActivity: ", "Fetch and scroll metrics\n" + metrics);
+
+                    Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+                    try {
+                        writer.write(metrics.toString());
+                    } finally {
+                        writer.close();
+                    }
+                    Log.i("MainActivity: ", "Fetch and scroll metrics written to " + file);
+                } catch (IOException e) {
+                    Log.e("MainActivity: ", "Problem writing the fetch and scroll metrics.", e);
+                }
+            }
+        });
     }
 
     //reset the loader
     @Override
     public void onLoaderReset(Loader<List<NewsArticle>> loader) {
-        mAdapter.clear();
+        //the stored result, local matches and further pages are only additions to the main result
+        if (loader.getId() == LOADER_ID) {
+            mAdapter.clear();
+        }
+    }
+
+    //hand decoded thumbnails and recent query results back when the system runs low on memory
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        ThumbnailLoader.getInstance(this).trimMemory(level);
+        if (level >= TRIM_MEMORY_RUNNING_LOW) {
+            QueryFanOut.clearCache();
+        }
     }
 
     @Override
@@ -182,6 +659,7 @@ public class MainActivity extends AppCompatActivity implements LoaderManager.Loa
     public boolean onCreateOptionsMenu(Menu menu) {
         //inflate our options menu
         getMenuInflater().inflate(R.menu.main, menu);
+        menu.findItem(R.id.action_monitor_scrolling).setChecked(isScrollMonitorOn());
         return true;
     }
 
@@ -194,6 +672,27 @@ public class MainActivity extends AppCompatActivity implements LoaderManager.Loa
             startActivity(settingsIntent);
             return true;
         }
+        if (id == R.id.action_filter_section) {
+            chooseSection();
+            return true;
+        }
+        if (id == R.id.action_export_metrics) {
+            exportMetrics();
+            return true;
+        }
+        if (id == R.id.action_monitor_scrolling) {
+            boolean on = !item.isChecked();
+            item.setChecked(on);
+            PreferenceManager.getDefaultSharedPreferences(this).edit()
+                    .putBoolean(getString(R.string.monitor_scrolling_key), on)
+                    .apply();
+            if (on) {
+                mScrollMonitor.start();
+            } else {
+                mScrollMonitor.stop();
+            }
+            return true;
+        }
         return super.onOptionsItemSelected(item);
     }
 }
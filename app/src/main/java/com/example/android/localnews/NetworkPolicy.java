@@ -0,0 +1,217 @@
+package com.example.android.localnews;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.net.NetworkRequest;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+//decides how much to fetch from the kind of network we're on, and tells the screen when
+//the network comes and goes so a fetch that couldn't be sent starts as soon as it can
+public class NetworkPolicy {
+
+    //a network estimating less downstream bandwidth than this is treated as slow
+    static final int SLOW_LINK_KBPS = 1000;
+
+    //the time the first page of a list should arrive in, and further pages which are requested
+    //ahead of the user and can be larger
+    static final long FIRST_PAGE_BUDGET_MILLIS = 1000;
+    static final long LATER_PAGE_BUDGET_MILLIS = 4000;
+
+    //the page sizes a measured network picks from, from the smallest page worth a request to the
+    //largest the API serves, a few fixed ones so the request URLs, and the cached responses keyed
+    //by them, stay the same while the estimate drifts
+    static final int[] PAGE_SIZES = {10, 20, 30, 50, 100, 200};
+
+    //the file the throughput estimate of each kind of network is kept in across launches
+    private static final String PREFS_NAME = "network_estimates";
+
+    //the throughput estimate of each kind of network, read from the file the first time it's needed
+    private static Map<Link, ThroughputEstimator> sEstimators;
+
+    //the kinds of network we tell apart, with how many articles a page asks for until the network
+    //has been measured, one of the page sizes, and how many rows before the end of the list the next
+    //page is requested
+    public enum Link {
+        //nothing is fetched, the page size only applies to the stored result that is shown
+        OFFLINE(NewsQuery.DEFAULT_PAGE_SIZE, 0),
+        //small pages that arrive quickly, the next one only once the user reaches the end
+        SLOW(20, 0),
+        //pages the user pays for are only fetched when they are about to be needed
+        METERED(30, 5),
+        //large pages fetched well before they are needed
+        UNMETERED(100, 50);
+
+        private final int mPageSize;
+        private final int mPrefetchRows;
+
+        Link(int pageSize, int prefetchRows) {
+            mPageSize = pageSize;
+            mPrefetchRows = prefetchRows;
+        }
+
+        //get the number of articles a page asks for on this link before it has been measured
+        public int getPageSize() {
+            return mPageSize;
+        }
+
+        //get how many rows before the end of the list the next page is requested on this link
+        public int getPrefetchRows() {
+            return mPrefetchRows;
+        }
+    }
+
+    //told on the main thread when the kind of network we're on has changed
+    public interface Listener {
+        void onLinkChanged(Link link);
+    }
+
+    private final ConnectivityManager mConnectivityManager;
+    private final Listener mListener;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    //the link last reported to the listener
+    private Link mLink;
+
+    //any change to any network makes us look at the default network again
+    private final ConnectivityManager.NetworkCallback mCallback = new ConnectivityManager.NetworkCallback() {
+        @Override
+        public void onAvailable(Network network) {
+            postUpdate();
+        }
+
+        @Override
+        public void onLost(Network network) {
+            postUpdate();
+        }
+
+        @Override
+        public void onCapabilitiesChanged(Network network, NetworkCapabilities capabilities) {
+            postUpdate();
+        }
+    };
+
+    //reads the default network on the main thread, after the callback that asked for it
+    private final Runnable mUpdate = new Runnable() {
+        @Override
+        public void run() {
+            Link link = getLink(mConnectivityManager);
+            if (link != mLink) {
+                mLink = link;
+                mListener.onLinkChanged(link);
+            }
+        }
+    };
+
+    //construct a policy telling a listener about the changes of the network once started
+    public NetworkPolicy(Context context, Listener listener) {
+        mConnectivityManager = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        mListener = listener;
+        mLink = getLink(mConnectivityManager);
+    }
+
+    //get the kind of network we're on right now
+    public static Link getLink(Context context) {
+        return getLink((ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE));
+    }
+
+    private static Link getLink(ConnectivityManager connectivityManager) {
+        Network network = connectivityManager.getActiveNetwork();
+        NetworkCapabilities capabilities = network == null
+                ? null : connectivityManager.getNetworkCapabilities(network);
+        if (capabilities == null || !capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET)) {
+            return Link.OFFLINE;
+        }
+        int kbps = capabilities.getLinkDownstreamBandwidthKbps();
+        if (kbps > 0 && kbps < SLOW_LINK_KBPS) {
+            return Link.SLOW;
+        }
+        return connectivityManager.isActiveNetworkMetered() ? Link.METERED : Link.UNMETERED;
+    }
+
+    //get the kind of network last seen
+    public Link getLink() {
+        return mLink;
+    }
+
+    //get the number of articles the first page of a list should ask for on the network we're on,
+    //small enough to arrive quickly on a slow network, larger on a fast one
+    public static int getFirstPageSize(Context context) {
+        return getPageSize(context, FIRST_PAGE_BUDGET_MILLIS);
+    }
+
+    //get the number of articles further pages of a list can ask for on the network we're on
+    public static int getLaterPageSize(Context context) {
+        return getPageSize(context, LATER_PAGE_BUDGET_MILLIS);
+    }
+
+    private static int getPageSize(Context context, long budgetMillis) {
+        Link link = getLink(context);
+        if (link == Link.OFFLINE) {
+            return link.getPageSize();
+        }
+        return getEstimator(context, link).getPageSize(budgetMillis, PAGE_SIZES, link.getPageSize());
+    }
+
+    //add the timings of a request to the estimate of the network we're on and save it,
+    //may be called on any thread
+    public static void recordFetch(Context context, FetchTimings timings) {
+        Link link = getLink(context);
+        if (link == Link.OFFLINE) {
+            return;
+        }
+        ThroughputEstimator estimator = getEstimator(context, link);
+        estimator.record(timings.getTimeToFirstByteMicros(), timings.getDownloadMicros(),
+                timings.getPayloadBytes(), timings.getArticles());
+
+        String prefix = link.name() + ":";
+        context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).edit()
+                .putFloat(prefix + "ttfb", (float) estimator.getTimeToFirstByteMillis())
+                .putFloat(prefix + "throughput", (float) estimator.getBytesPerSecond())
+                .putFloat(prefix + "article", (float) estimator.getBytesPerArticle())
+                .putInt(prefix + "samples", estimator.getSamples())
+                .apply();
+        Log.d("NetworkPolicy: ", link + " " + estimator.getSummary());
+    }
+
+    private static synchronized ThroughputEstimator getEstimator(Context context, Link link) {
+        if (sEstimators == null) {
+            sEstimators = new EnumMap<>(Link.class);
+            SharedPreferences prefs = context.getApplicationContext()
+                    .getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+            for (Link saved : Link.values()) {
+                String prefix = saved.name() + ":";
+                sEstimators.put(saved, new ThroughputEstimator(prefs.getFloat(prefix + "ttfb", 0),
+                        prefs.getFloat(prefix + "throughput", 0), prefs.getFloat(prefix + "article", 0),
+                        prefs.getInt(prefix + "samples", 0)));
+            }
+        }
+        return sEstimators.get(link);
+    }
+
+    //start following the network, reporting a change that happened while stopped right away
+    public void start() {
+        mConnectivityManager.registerNetworkCallback(new NetworkRequest.Builder()
+                .addCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET)
+                .build(), mCallback);
+        postUpdate();
+    }
+
+    //stop following the network
+    public void stop() {
+        mConnectivityManager.unregisterNetworkCallback(mCallback);
+        mMainHandler.removeCallbacks(mUpdate);
+    }
+
+    private void postUpdate() {
+        mMainHandler.removeCallbacks(mUpdate);
+        mMainHandler.post(mUpdate);
+    }
+}
@@ -1,53 +1,199 @@
 package com.example.android.localnews;
 
-import android.app.Activity;
+import android.content.Context;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.ArrayAdapter;
+import android.widget.AbsListView;
+import android.widget.BaseAdapter;
+import android.widget.ImageView;
 import android.widget.TextView;
 
+import java.util.List;
 
-import java.util.ArrayList;
+//Adapter view for a news article object, showing the articles of a window over the list
+//so only the rows around the visible position are held in memory
+public class NewsArticleAdapter extends BaseAdapter
+        implements AbsListView.RecyclerListener, ArticleWindow.Listener {
 
-//Adapter view for a news article object
-public class NewsArticleAdapter extends ArrayAdapter<NewsArticle> {
+    private final Context mContext;
+
+    //the articles shown
+    private final ArticleWindow mWindow;
+
+    //loads the thumbnails of the rows
+    private final ThumbnailLoader mThumbnailLoader;
 
     //constructor for creating a new NewsArticleAdapter
-    public NewsArticleAdapter(Activity context, ArrayList<NewsArticle> articles) {
-        super(context, 0, articles);
+    public NewsArticleAdapter(Context context, List<NewsArticle> articles) {
+        mContext = context;
+        mWindow = new ArticleWindow(context, this);
+        mThumbnailLoader = ThumbnailLoader.getInstance(context);
+        mWindow.replace(articles);
     }
 
-    //provide a View for an AdaptorView
+    @Override
+    public int getCount() {
+        return mWindow.getCount();
+    }
+
+    //get the article at a position, or null while its row is still being read from the store
+    @Override
+    public NewsArticle getItem(int position) {
+        return mWindow.get(position);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return position;
+    }
+
+    //provide a View for an AdaptorView, timing the bind for the scroll metrics when they are enabled
     @NonNull
     @Override
     public View getView(int position, @Nullable View convertView, @NonNull ViewGroup parent) {
+        if (!ScrollMetrics.isEnabled()) {
+            return bindView(position, convertView, parent);
+        }
+        long start = System.nanoTime();
+        View listItemView = bindView(position, convertView, parent);
+        ScrollMetrics.recordBind((System.nanoTime() - start) / 1000);
+        return listItemView;
+    }
+
+    //bind a row, binding only precomputed strings so a recycled row can be rebound without allocating
+    private View bindView(int position, View convertView, ViewGroup parent) {
         View listItemView = convertView;
+        ViewHolder holder;
         if (listItemView == null) {
-            listItemView = LayoutInflater.from(getContext()).inflate(R.layout.news_list_item, parent, false);
+            listItemView = LayoutInflater.from(mContext).inflate(R.layout.news_list_item, parent, false);
+            holder = new ViewHolder(listItemView);
+            listItemView.setTag(holder);
+        } else {
+            holder = (ViewHolder) listItemView.getTag();
         }
 
         //get the current article in our list
         NewsArticle currentArticle = getItem(position);
 
-        //find the current article title view in our layout and set its value
-        TextView titleView = (TextView) listItemView.findViewById(R.id.title);
-        titleView.setText(currentArticle.getTitle());
-
-        //find the current article author view in our layout and set its value
-        TextView authorView = (TextView) listItemView.findViewById(R.id.author);
-        authorView.setText(currentArticle.getAuthor());
+        //a row that already shows this article doesn't need binding again
+        if (currentArticle != null && holder.mArticle == currentArticle) {
+            return listItemView;
+        }
+        holder.mArticle = currentArticle;
 
-        //find the current article date view in our layout and set its value
-        TextView dateView = (TextView) listItemView.findViewById(R.id.date);
-        dateView.setText(Utilities.formatDate(currentArticle.getDate()));
+        //the row stays blank until its article has been read from the store
+        if (currentArticle == null) {
+            holder.mTitleView.setText(null);
+            holder.mAuthorView.setText(null);
+            holder.mDateView.setText(null);
+            holder.mSectionView.setText(null);
+        } else {
+            holder.mTitleView.setText(currentArticle.getTitle());
+            holder.mAuthorView.setText(currentArticle.getAuthor());
+            holder.mDateView.setText(currentArticle.getDisplayDate());
+            holder.mSectionView.setText(currentArticle.getSection());
+        }
 
-        //find the current article section view in our layout and set its value
-        TextView sectionView = (TextView) listItemView.findViewById(R.id.section);
-        sectionView.setText(currentArticle.getSection());
+        //the row no longer wants the image it was loading for its previous article
+        if (holder.mThumbnailLoad != null) {
+            holder.mThumbnailLoad.cancel();
+        }
+        holder.mThumbnailLoad = mThumbnailLoader.load(
+                currentArticle == null ? "" : currentArticle.getThumbnailUrl(), holder.mThumbnailView);
 
         return listItemView;
     }
+
+    //stop loading the thumbnail of a row that scrolled off screen, set on the list view
+    //with setRecyclerListener
+    @Override
+    public void onMovedToScrapHeap(View view) {
+        ViewHolder holder = (ViewHolder) view.getTag();
+        if (holder.mThumbnailLoad != null && !holder.mThumbnailLoad.isShown()) {
+            holder.mThumbnailLoad.cancel();
+            holder.mThumbnailLoad = null;
+
+            //the image never arrived, so the row has to be bound again when it comes back
+            holder.mArticle = null;
+        }
+    }
+
+    //rows have been read from the store or the list has changed
+    @Override
+    public void onWindowChanged() {
+        notifyDataSetChanged();
+    }
+
+    //replace the list with a new one, reusing the instances of articles that haven't changed
+    //so their rows aren't rebound, and returning whether anything changed at all
+    public boolean setArticles(List<NewsArticle> articles) {
+        return mWindow.replace(articles);
+    }
+
+    //add a further page to the end of the list, leaving out articles it already holds
+    public void appendArticles(List<NewsArticle> articles) {
+        mWindow.append(articles);
+    }
+
+    //put a fresh first page in front of the list, moving articles it already holds up to it
+    public void prependArticles(List<NewsArticle> articles) {
+        mWindow.prepend(articles);
+    }
+
+    //empty the list
+    public void clear() {
+        mWindow.clear();
+    }
+
+    //check whether the list starts with the same articles in the same order
+    public boolean startsWith(List<NewsArticle> articles) {
+        return mWindow.startsWith(articles);
+    }
+
+    //narrow the list to a section, or show all of it if the section is null, newest first
+    //or in the order it was fetched in
+    public void setView(String section, boolean newestFirst) {
+        mWindow.setView(section, newestFirst);
+    }
+
+    //get the section the list is narrowed to, null for all of them
+    public String getSection() {
+        return mWindow.getSection();
+    }
+
+    //get the length of the whole list, whatever section it is narrowed to
+    public int getTotalCount() {
+        return mWindow.getTotalCount();
+    }
+
+    //count the articles of each section of the whole list
+    public void loadSections(ArticleWindow.SectionsListener listener) {
+        mWindow.loadSections(listener);
+    }
+
+    //the views of a list item, looked up once when the row is inflated
+    private static class ViewHolder {
+        private final TextView mTitleView;
+        private final TextView mAuthorView;
+        private final TextView mDateView;
+        private final TextView mSectionView;
+        private final ImageView mThumbnailView;
+
+        //the article the row currently shows
+        private NewsArticle mArticle;
+
+        //the thumbnail still being loaded for the row, if any
+        private ThumbnailLoader.Load mThumbnailLoad;
+
+        ViewHolder(View listItemView) {
+            mTitleView = (TextView) listItemView.findViewById(R.id.title);
+            mAuthorView = (TextView) listItemView.findViewById(R.id.author);
+            mDateView = (TextView) listItemView.findViewById(R.id.date);
+            mSectionView = (TextView) listItemView.findViewById(R.id.section);
+            mThumbnailView = (ImageView) listItemView.findViewById(R.id.thumbnail);
+        }
+    }
 }
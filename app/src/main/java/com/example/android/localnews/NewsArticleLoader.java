@@ -1,19 +1,61 @@
 package com.example.android.localnews;
 
 import android.content.Context;
-import android.content.AsyncTaskLoader;
+import android.content.Loader;
+import android.os.CancellationSignal;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
 import java.util.List;
 
-//loader for a news article list
-public class NewsArticleLoader extends AsyncTaskLoader<List<NewsArticle>> {
+//loader for a news article list, fetched on the QueryExecutor so a cancelled load also
+//cancels its HTTP request instead of letting it run to completion
+public class NewsArticleLoader extends Loader<List<NewsArticle>> {
+
+    //how long a fetch started by a query change waits, so a burst of changes makes one request
+    public static final long QUERY_CHANGE_DEBOUNCE_MILLIS = 400;
+
+    //holds the query that will be loaded from the internet
+    private final NewsQuery mQuery;
+
+    //the page of the query that will be loaded, counting from 1
+    private final int mPage;
+
+    //how long to wait before a fetch is sent
+    private final long mDebounceMillis;
+
+    //delivers results back on the main thread
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
 
-    //holds the url that will be loaded from the internet
-    private String mUrl = "";
+    //the fetch currently waiting or running, if any
+    private FetchTask mTask;
 
-    //construct a new loader with a given url
-    public NewsArticleLoader(Context context, String url) {
+    //whether the last delivered result was the final page of the query
+    private boolean mLastPage;
+
+    //construct a new loader for a page of a given query
+    public NewsArticleLoader(Context context, NewsQuery query, int page, long debounceMillis) {
         super(context);
-        mUrl = url;
+        mQuery = query;
+        mPage = page;
+        mDebounceMillis = debounceMillis;
+    }
+
+    //get the page this loader fetches
+    public int getPage() {
+        return mPage;
+    }
+
+    //get the query this loader fetches
+    public NewsQuery getQuery() {
+        return mQuery;
+    }
+
+    //whether the last delivered result has no further page after it,
+    //which can't be told from its size once the results of several terms are merged
+    public boolean isLastPage() {
+        return mLastPage;
     }
 
     //load a new data set
@@ -22,15 +64,142 @@ public class NewsArticleLoader extends AsyncTaskLoader<List<NewsArticle>> {
         forceLoad();
     }
 
-    //start a new thread to load our data from the internet
+    //replace any fetch in progress with a new one, sent once the debounce delay has passed
+    @Override
+    protected void onForceLoad() {
+        if (mTask != null) {
+            mTask.cancel();
+        }
+        mTask = new FetchTask();
+        mHandler.postDelayed(mTask.mSubmit, mDebounceMillis);
+    }
+
+    //cancel the fetch in progress, closing its connection if it has one
+    @Override
+    protected boolean onCancelLoad() {
+        if (mTask == null) {
+            return false;
+        }
+        mTask.cancel();
+        mTask = null;
+
+        //report the cancellation right away rather than when the fetch thread notices it,
+        //posted because the LoaderManager only queues a restarted loader after this returns
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                deliverCancellation();
+            }
+        });
+        return true;
+    }
+
     @Override
-    public List<NewsArticle> loadInBackground() {
-        if(mUrl == ""){
-            return null;
+    protected void onReset() {
+        if (mTask != null) {
+            mTask.cancel();
+            mTask = null;
+        }
+    }
+
+    //hand a finished fetch's result to the LoaderManager, unless it has been superseded
+    private void onFetchComplete(FetchTask task, QueryFanOut.Result result) {
+        if (task != mTask) {
+            return;
+        }
+        mTask = null;
+
+        if (!isAbandoned()) {
+            mLastPage = result == null || result.isLastPage();
+            deliverResult(result == null ? null : result.getArticles());
+
+            //the whole refresh, from handing the fetch to the executor to delivering its articles
+            if (result != null) {
+                FetchMetrics.record(FetchMetrics.Stage.TOTAL, (System.nanoTime() - task.mSubmitNanos) / 1000);
+            }
+        }
+    }
+
+    //load our data from the internet on a fetch thread, one request per search term,
+    //the first page only asks for what is new since the stored result where it can
+    private QueryFanOut.Result fetch(CancellationSignal signal) {
+        int maxConcurrent = getContext().getResources().getInteger(R.integer.max_parallel_queries);
+        QueryFanOut.Result result;
+        if (mPage == 1) {
+            result = DeltaRefresh.fetchFirstPage(getContext(), mQuery, maxConcurrent,
+                    RequestBudget.Priority.FOREGROUND, signal);
+        } else {
+            result = QueryFanOut.fetch(getContext(), mQuery, mPage, NewsArticle.NO_DATE, maxConcurrent,
+                    RequestBudget.Priority.FOREGROUND, signal);
+        }
+
+        //keep the fresh first page so the next launch can show it straight away,
+        //and add every page to the search index so later queries can be answered offline
+        //and to the search term suggestions
+        if (result != null && !signal.isCanceled()) {
+            ArticleStore store = ArticleStore.getInstance(getContext());
+            if (mPage == 1) {
+                store.putArticles(mQuery.getKey(), mQuery.getPageSize(), result.getArticles());
+            } else {
+                store.indexArticles(result.getArticles());
+            }
+            SearchSuggestions.getInstance(getContext()).addArticles(result.getArticles());
         }
 
-        List<NewsArticle> result = Utilities.fetchNewsArticleData(mUrl);
         return result;
+    }
+
+    //a single fetch, from its debounce delay until its result is delivered
+    private class FetchTask extends QueryExecutor.Task {
+        private final CancellationSignal mSignal = new CancellationSignal();
+
+        //when the task was handed to the executor, in System.nanoTime()
+        private volatile long mSubmitNanos;
+
+        //hands the task to the executor once the debounce delay has passed
+        private final Runnable mSubmit = new Runnable() {
+            @Override
+            public void run() {
+                mSubmitNanos = System.nanoTime();
+                QueryExecutor.execute(FetchTask.this);
+            }
+        };
+
+        //the fetch always completes, a fetch that threw is reported as failed so the loader
+        //still delivers and the executor's thread lives on
+        @Override
+        public void run() {
+            FetchMetrics.record(FetchMetrics.Stage.QUEUE, (System.nanoTime() - mSubmitNanos) / 1000);
+            QueryFanOut.Result result = null;
+            try {
+                if (!mSignal.isCanceled()) {
+                    result = fetch(mSignal);
+                }
+            } catch (RuntimeException e) {
+                Log.e("NewsArticleLoader: ", "Problem fetching the articles.", e);
+            } finally {
+                postComplete(result);
+            }
+        }
 
+        //a fetch dropped by the executor is reported as failed
+        @Override
+        protected void onRejected() {
+            postComplete(null);
+        }
+
+        private void postComplete(final QueryFanOut.Result result) {
+            mHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    onFetchComplete(FetchTask.this, result);
+                }
+            });
+        }
+
+        void cancel() {
+            mHandler.removeCallbacks(mSubmit);
+            mSignal.cancel();
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,178 @@
+package com.example.android.localnews;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.net.Uri;
+import android.preference.PreferenceManager;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+//the search settings a list of news articles is requested with
+public class NewsQuery {
+
+    //our news article request URL
+    private static final String REQUEST_URL = "https://content.guardianapis.com/search";
+
+    //the number of articles requested at once unless the network calls for another page size
+    static final int DEFAULT_PAGE_SIZE = 50;
+
+    //the order_by value that sorts results by publication date
+    static final String ORDER_BY_NEWEST = "newest";
+
+    //separates the places of a query searching several of them at once
+    private static final String TERM_SEPARATOR = ",";
+
+    //the search term of the query
+    private final String mSearchTerm;
+
+    //the order the results are requested in
+    private final String mOrderBy;
+
+    //the number of articles a page of the results holds
+    private final int mPageSize;
+
+    //construct a new query from a search term and an ordering with the default page size
+    public NewsQuery(String searchTerm, String orderBy) {
+        this(searchTerm, orderBy, DEFAULT_PAGE_SIZE);
+    }
+
+    //construct a new query from a search term, an ordering and a page size
+    public NewsQuery(String searchTerm, String orderBy, int pageSize) {
+        mSearchTerm = searchTerm;
+        mOrderBy = orderBy;
+        mPageSize = pageSize;
+    }
+
+    //build a query from the current values of the user's settings, with a first page the size
+    //the network we're on can deliver quickly
+    public static NewsQuery fromPreferences(Context context) {
+        return fromPreferences(context, NetworkPolicy.getFirstPageSize(context));
+    }
+
+    //build a query from the current values of the user's settings with a given page size
+    public static NewsQuery fromPreferences(Context context, int pageSize) {
+        SharedPreferences sharedPrefs = PreferenceManager.getDefaultSharedPreferences(context);
+
+        String searchTerm = sharedPrefs.getString(
+                context.getString(R.string.settings_search_term_key),
+                context.getString(R.string.settings_search_term_default));
+
+        String orderBy = sharedPrefs.getString(
+                context.getString(R.string.settings_order_by_key),
+                context.getString(R.string.settings_order_by_default));
+
+        return new NewsQuery(searchTerm, orderBy, pageSize);
+    }
+
+    //get the search term of the query
+    public String getSearchTerm() {
+        return mSearchTerm;
+    }
+
+    //get the places the query searches for, a search term like "Reno, Sparks, Washoe County"
+    //is searched as one request per place, blank and repeated places are left out
+    public List<String> getSearchTerms() {
+        return splitTerms(mSearchTerm);
+    }
+
+    //split a search term at its separators into distinct, trimmed terms
+    static List<String> splitTerms(String searchTerm) {
+        List<String> terms = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (String term : searchTerm.split(TERM_SEPARATOR)) {
+            term = term.trim();
+            if (!term.isEmpty() && seen.add(term.toLowerCase(Locale.US))) {
+                terms.add(term);
+            }
+        }
+
+        //an empty search term still makes a single, unfiltered search
+        if (terms.isEmpty()) {
+            terms.add("");
+        }
+        return terms;
+    }
+
+    //get an FTS MATCH expression finding articles that mention any of the terms of this query,
+    //each term is matched as a phrase, empty if there is nothing to search for
+    public String getMatchQuery() {
+        StringBuilder match = new StringBuilder();
+        for (String term : getSearchTerms()) {
+            //quotes would end the phrase early, and the tokenizer ignores them anyway
+            term = term.replace('"', ' ').trim();
+            if (term.isEmpty()) {
+                continue;
+            }
+            if (match.length() > 0) {
+                match.append(" OR ");
+            }
+            match.append('"').append(term).append('"');
+        }
+        return match.toString();
+    }
+
+    //get the ordering of the query
+    public String getOrderBy() {
+        return mOrderBy;
+    }
+
+    //get the same query in another ordering
+    public NewsQuery withOrderBy(String orderBy) {
+        return new NewsQuery(mSearchTerm, orderBy, mPageSize);
+    }
+
+    //get the number of articles a page of the results holds
+    public int getPageSize() {
+        return mPageSize;
+    }
+
+    //get the key results of this query are stored under, whatever their page size,
+    //the API search is case insensitive so the terms are normalized
+    public String getKey() {
+        StringBuilder key = new StringBuilder(mOrderBy).append(':');
+        List<String> terms = getSearchTerms();
+        for (int i = 0; i < terms.size(); i++) {
+            if (i > 0) {
+                key.append(TERM_SEPARATOR);
+            }
+            key.append(terms.get(i).toLowerCase(Locale.US));
+        }
+        return key.toString();
+    }
+
+    //build the request URL for a page of one of the terms of this query, counting from page 1
+    public String buildUrl(String searchTerm, int page) {
+        return buildUrl(searchTerm, page, NewsArticle.NO_DATE);
+    }
+
+    //build the request URL for a page of one of the terms of this query, only asking for articles
+    //published at or after a time in epoch milliseconds unless it is NewsArticle.NO_DATE
+    public String buildUrl(String searchTerm, int page, long fromMillis) {
+        //parse our base URI string
+        Uri baseUri = Uri.parse(REQUEST_URL);
+
+        //prepare our baseURI so that we can add parameters
+        Uri.Builder uriBuilder = baseUri.buildUpon();
+
+        //grab our API key
+        String apiKey = BuildConfig.THE_GUARDIAN_API_KEY;
+
+        //append our query parameters to our baseURI
+        uriBuilder.appendQueryParameter("q", searchTerm);
+        uriBuilder.appendQueryParameter("api-key", apiKey);
+        uriBuilder.appendQueryParameter("show-tags", "contributor");
+        uriBuilder.appendQueryParameter("show-fields", "thumbnail");
+        uriBuilder.appendQueryParameter("page-size", String.valueOf(mPageSize));
+        uriBuilder.appendQueryParameter("page", String.valueOf(page));
+        uriBuilder.appendQueryParameter("order-by", mOrderBy);
+        if (fromMillis != NewsArticle.NO_DATE) {
+            uriBuilder.appendQueryParameter("from-date", Iso8601.format(fromMillis));
+        }
+
+        return uriBuilder.toString();
+    }
+}
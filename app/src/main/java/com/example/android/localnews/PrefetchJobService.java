@@ -0,0 +1,169 @@
+package com.example.android.localnews;
+
+import android.app.job.JobInfo;
+import android.app.job.JobParameters;
+import android.app.job.JobScheduler;
+import android.app.job.JobService;
+import android.content.ComponentName;
+import android.content.Context;
+import android.os.CancellationSignal;
+import android.util.Log;
+import android.util.SparseArray;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//background job refreshing the stored result of the configured query and the bodies of its top
+//articles, so opening the app or an article shows fresh content without waiting for the network
+public class PrefetchJobService extends JobService {
+
+    //job ids, one job runs while charging and one while the device is idle
+    //since a single job can only require both
+    private static final int CHARGING_JOB_ID = 1001;
+    private static final int IDLE_JOB_ID = 1002;
+
+    //one-off job fetching the bodies of the top articles once we're on an unmetered network
+    private static final int BODY_JOB_ID = 1003;
+
+    //how often the stored result is refreshed, the flex window lets the system
+    //run the refresh together with other work in one wake-up
+    static final long REFRESH_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(4);
+    private static final long REFRESH_FLEX_MILLIS = TimeUnit.HOURS.toMillis(2);
+
+    //a stored result younger than this is left alone, so whichever job runs second does nothing
+    private static final long MIN_REFRESH_AGE_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    //the prefetches currently running by job id, the jobs may overlap and each is stopped on its own,
+    //guarded by itself as the tasks remove themselves on a fetch thread
+    private final SparseArray<PrefetchTask> mTasks = new SparseArray<>();
+
+    //schedule the refresh jobs unless they are already pending
+    public static void schedule(Context context) {
+        JobScheduler scheduler = (JobScheduler) context.getSystemService(Context.JOB_SCHEDULER_SERVICE);
+        boolean chargingScheduled = false;
+        boolean idleScheduled = false;
+        for (JobInfo job : scheduler.getAllPendingJobs()) {
+            chargingScheduled |= job.getId() == CHARGING_JOB_ID;
+            idleScheduled |= job.getId() == IDLE_JOB_ID;
+        }
+
+        ComponentName service = new ComponentName(context, PrefetchJobService.class);
+        if (!chargingScheduled) {
+            scheduler.schedule(newJob(CHARGING_JOB_ID, service).setRequiresCharging(true).build());
+        }
+        if (!idleScheduled) {
+            scheduler.schedule(newJob(IDLE_JOB_ID, service).setRequiresDeviceIdle(true).build());
+        }
+    }
+
+    //have the bodies of the top articles of the configured query fetched as soon as we're
+    //on an unmetered network, replacing a pending request so only one runs
+    public static void scheduleBodyPrefetch(Context context) {
+        JobScheduler scheduler = (JobScheduler) context.getSystemService(Context.JOB_SCHEDULER_SERVICE);
+        scheduler.schedule(new JobInfo.Builder(BODY_JOB_ID, new ComponentName(context, PrefetchJobService.class))
+                .setRequiredNetworkType(JobInfo.NETWORK_TYPE_UNMETERED)
+                .build());
+    }
+
+    //the conditions both jobs share
+    private static JobInfo.Builder newJob(int id, ComponentName service) {
+        return new JobInfo.Builder(id, service)
+                .setRequiredNetworkType(JobInfo.NETWORK_TYPE_UNMETERED)
+                .setPeriodic(REFRESH_INTERVAL_MILLIS, REFRESH_FLEX_MILLIS)
+                .setPersisted(true);
+    }
+
+    @Override
+    public boolean onStartJob(JobParameters params) {
+        PrefetchTask task = new PrefetchTask(params);
+        synchronized (mTasks) {
+            mTasks.put(params.getJobId(), task);
+        }
+        QueryExecutor.execute(task);
+        return true;
+    }
+
+    //the conditions of a job no longer hold, stop its fetch and retry in the next window
+    @Override
+    public boolean onStopJob(JobParameters params) {
+        PrefetchTask task;
+        synchronized (mTasks) {
+            task = mTasks.get(params.getJobId());
+            mTasks.remove(params.getJobId());
+        }
+        if (task != null) {
+            task.mSignal.cancel();
+        }
+        return true;
+    }
+
+    //refresh the stored result of the configured query on a fetch thread
+    private class PrefetchTask extends QueryExecutor.Task {
+        private final JobParameters mParams;
+        private final CancellationSignal mSignal = new CancellationSignal();
+
+        PrefetchTask(JobParameters params) {
+            mParams = params;
+        }
+
+        @Override
+        public void run() {
+            Context context = getApplicationContext();
+            NewsQuery query = NewsQuery.fromPreferences(context);
+            ArticleStore store = ArticleStore.getInstance(context);
+
+            if (mParams.getJobId() == BODY_JOB_ID) {
+                prefetchBodies(context, store.getArticles(query.getKey()));
+                if (!mSignal.isCanceled()) {
+                    finish(false);
+                }
+                return;
+            }
+
+            long fetchedAt = store.getFetchedAt(query.getKey());
+            if (fetchedAt != ArticleStore.NOT_STORED
+                    && System.currentTimeMillis() - fetchedAt < MIN_REFRESH_AGE_MILLIS) {
+                finish(false);
+                return;
+            }
+
+            int maxConcurrent = context.getResources().getInteger(R.integer.max_parallel_queries);
+            QueryFanOut.Result result = DeltaRefresh.fetchFirstPage(context, query, maxConcurrent,
+                    RequestBudget.Priority.BACKGROUND, mSignal);
+            if (mSignal.isCanceled()) {
+                return;
+            }
+            if (result != null) {
+                store.putArticles(query.getKey(), query.getPageSize(), result.getArticles());
+                Log.d("PrefetchJobService: ", "Prefetched " + result.getArticles().size() + " articles");
+                prefetchBodies(context, result.getArticles());
+            }
+
+            //a failed refresh is retried with the scheduler's backoff
+            finish(result == null);
+        }
+
+        //forget the task, leaving a newer run of the same job in place, and tell the scheduler the job is done
+        private void finish(boolean reschedule) {
+            synchronized (mTasks) {
+                if (mTasks.get(mParams.getJobId()) == this) {
+                    mTasks.remove(mParams.getJobId());
+                }
+            }
+            jobFinished(mParams, reschedule);
+        }
+
+        //fetch the bodies of the top articles that aren't stored yet, so they open offline
+        private void prefetchBodies(Context context, List<NewsArticle> articles) {
+            int max = context.getResources().getInteger(R.integer.prefetch_article_bodies);
+            int fetched = ArticleBodyStore.getInstance(context).prefetch(articles, max, mSignal);
+            Log.d("PrefetchJobService: ", "Prefetched " + fetched + " article bodies");
+        }
+
+        //a prefetch dropped for foreground fetches is retried later
+        @Override
+        protected void onRejected() {
+            finish(true);
+        }
+    }
+}
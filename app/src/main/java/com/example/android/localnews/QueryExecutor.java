@@ -0,0 +1,66 @@
+package com.example.android.localnews;
+
+import android.os.Process;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//small bounded executor dedicated to fetching news queries, so fetches neither queue up behind
+//unrelated AsyncTasks nor pile up without limit when the query keeps changing
+public final class QueryExecutor {
+
+    //fetches running at once, and fetches allowed to wait for a thread
+    private static final int THREADS = 2;
+    private static final int QUEUE_SIZE = 8;
+
+    private static final ThreadPoolExecutor EXECUTOR = new ThreadPoolExecutor(THREADS, THREADS,
+            30, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(QUEUE_SIZE),
+            new ThreadFactory() {
+                private final AtomicInteger mCount = new AtomicInteger();
+
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    return new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                            runnable.run();
+                        }
+                    }, "QueryExecutor #" + mCount.incrementAndGet());
+                }
+            },
+            new RejectedExecutionHandler() {
+                //when the queue is full the oldest waiting fetch is the least useful one, drop it
+                @Override
+                public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor) {
+                    Runnable oldest = executor.getQueue().poll();
+                    if (oldest instanceof Task) {
+                        ((Task) oldest).onRejected();
+                    }
+                    executor.execute(runnable);
+                }
+            });
+
+    static {
+        EXECUTOR.allowCoreThreadTimeOut(true);
+    }
+
+    private QueryExecutor() {
+    }
+
+    //queue a task to run on one of the fetch threads
+    public static void execute(Task task) {
+        EXECUTOR.execute(task);
+    }
+
+    //a unit of work for the executor that is told when it is dropped without running
+    public abstract static class Task implements Runnable {
+
+        //called instead of run() when the task was dropped to make room for newer work
+        protected abstract void onRejected();
+    }
+}
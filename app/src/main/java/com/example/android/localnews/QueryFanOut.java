@@ -0,0 +1,254 @@
+package com.example.android.localnews;
+
+import android.content.Context;
+import android.os.CancellationSignal;
+import android.os.Process;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//fetches a page of every search term of a query at the same time and merges the results,
+//so a query over several places takes about as long as its slowest term
+public final class QueryFanOut {
+
+    //the most term requests running at once across all fan-outs, beyond this a fan-out
+    //runs its remaining requests on its own thread
+    private static final int MAX_THREADS = 4;
+
+    //threads for the term requests, separate from the QueryExecutor thread that waits on them
+    //so a fan-out can never wait for a thread held by another fan-out
+    private static final ThreadPoolExecutor EXECUTOR = new ThreadPoolExecutor(0, MAX_THREADS,
+            30, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(),
+            new ThreadFactory() {
+                private final AtomicInteger mCount = new AtomicInteger();
+
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    return new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                            runnable.run();
+                        }
+                    }, "QueryFanOut #" + mCount.incrementAndGet());
+                }
+            },
+            new ThreadPoolExecutor.CallerRunsPolicy());
+
+    //the term results kept in memory, so switching back to a recent query or fetching one that
+    //is already on its way doesn't send the same requests again
+    private static final int MAX_CACHED_RESULTS = 16;
+    private static final long RESULT_TTL_MILLIS = TimeUnit.MINUTES.toMillis(2);
+    private static final ResultCache<List<NewsArticle>> RESULTS =
+            new ResultCache<>(MAX_CACHED_RESULTS, RESULT_TTL_MILLIS);
+
+    //orders merged articles newest first, undated articles last
+    private static final Comparator<NewsArticle> NEWEST_FIRST = new Comparator<NewsArticle>() {
+        @Override
+        public int compare(NewsArticle a, NewsArticle b) {
+            long first = a.getPublished();
+            long second = b.getPublished();
+            return first > second ? -1 : (first == second ? 0 : 1);
+        }
+    };
+
+    private QueryFanOut() {
+    }
+
+    //fetch a page of every term of a query with at most maxConcurrent requests running at once,
+    //only asking for articles published from fromMillis on unless it is NewsArticle.NO_DATE,
+    //returns null if every request failed or the fetch was cancelled
+    public static Result fetch(Context context, NewsQuery query, int page, long fromMillis, int maxConcurrent,
+                               final RequestBudget.Priority priority, CancellationSignal signal) {
+        List<String> terms = query.getSearchTerms();
+        final int termCount = terms.size();
+
+        final HttpTransport.Request[] requests = new HttpTransport.Request[termCount];
+        final String[] keys = new String[termCount];
+        final CancellationSignal[] termSignals = new CancellationSignal[termCount];
+        for (int i = 0; i < termCount; i++) {
+            requests[i] = new HttpTransport.Request(query.buildUrl(terms.get(i), page, fromMillis));
+            //the API search is case insensitive, so requests differing only in case share a result
+            keys[i] = query.buildUrl(terms.get(i).toLowerCase(Locale.US), page, fromMillis);
+            termSignals[i] = new CancellationSignal();
+        }
+        @SuppressWarnings("unchecked")
+        final List<NewsArticle>[] results = new List[termCount];
+
+        //a signal only takes one listener, so the fan-out's signal cancels each term's own one
+        signal.setOnCancelListener(new CancellationSignal.OnCancelListener() {
+            @Override
+            public void onCancel() {
+                for (CancellationSignal termSignal : termSignals) {
+                    termSignal.cancel();
+                }
+            }
+        });
+
+        //each worker takes the next term that hasn't been started until none are left,
+        //so no more than the worker count are ever in flight
+        final Context appContext = context.getApplicationContext();
+        final AtomicInteger nextTerm = new AtomicInteger();
+        int workerCount = Math.max(1, Math.min(maxConcurrent, termCount));
+        final CountDownLatch workersDone = new CountDownLatch(workerCount);
+        Runnable worker = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    int term;
+                    while ((term = nextTerm.getAndIncrement()) < termCount && !termSignals[term].isCanceled()) {
+                        final HttpTransport.Request request = requests[term];
+                        final CancellationSignal termSignal = termSignals[term];
+                        results[term] = RESULTS.get(keys[term], new ResultCache.Fetcher<List<NewsArticle>>() {
+                            @Override
+                            public List<NewsArticle> fetch() {
+                                return Utilities.fetchNewsArticleData(appContext, request, priority, termSignal);
+                            }
+
+                            @Override
+                            public boolean isCancelled() {
+                                return termSignal.isCanceled();
+                            }
+                        });
+                    }
+                } finally {
+                    workersDone.countDown();
+                }
+            }
+        };
+
+        try {
+            //the calling thread is one of the workers
+            for (int i = 1; i < workerCount; i++) {
+                EXECUTOR.execute(worker);
+            }
+            worker.run();
+            workersDone.await();
+        } catch (InterruptedException e) {
+            signal.cancel();
+            Thread.currentThread().interrupt();
+        } finally {
+            signal.setOnCancelListener(null);
+        }
+
+        if (signal.isCanceled()) {
+            return null;
+        }
+
+        //a term with fewer results than a full page has no further pages
+        List<List<NewsArticle>> termResults = new ArrayList<>(termCount);
+        boolean lastPage = true;
+        for (int i = 0; i < termCount; i++) {
+            if (results[i] == null) {
+                Log.w("QueryFanOut: ", "No results for term " + terms.get(i));
+                continue;
+            }
+            termResults.add(results[i]);
+            lastPage &= results[i].size() < query.getPageSize();
+        }
+        if (termResults.isEmpty()) {
+            return null;
+        }
+
+        return new Result(merge(termResults, query.getOrderBy()), lastPage);
+    }
+
+    //drop the term results kept in memory
+    public static void clearCache() {
+        RESULTS.clear();
+    }
+
+    //merge the results of several terms into one list without repeating an article,
+    //relevance scores of different searches can't be compared so relevance ordered results
+    //are interleaved rank by rank, keeping each term's best matches near the top
+    static List<NewsArticle> merge(List<List<NewsArticle>> termResults, String orderBy) {
+        if (termResults.size() == 1) {
+            return termResults.get(0);
+        }
+
+        int total = 0;
+        int longest = 0;
+        for (List<NewsArticle> articles : termResults) {
+            total += articles.size();
+            longest = Math.max(longest, articles.size());
+        }
+
+        List<NewsArticle> merged = new ArrayList<>(total);
+        Set<String> urls = new HashSet<>(total * 2);
+        for (int rank = 0; rank < longest; rank++) {
+            for (List<NewsArticle> articles : termResults) {
+                if (rank < articles.size() && urls.add(articles.get(rank).getUrl())) {
+                    merged.add(articles.get(rank));
+                }
+            }
+        }
+
+        //the sort is stable, so articles published at the same moment keep their interleaved order
+        if (NewsQuery.ORDER_BY_NEWEST.equals(orderBy)) {
+            Collections.sort(merged, NEWEST_FIRST);
+        }
+
+        return merged;
+    }
+
+    //add the local matches of a query that a fetched result doesn't already hold,
+    //by date when ordering by newest and after the fetched articles otherwise,
+    //since local matches carry no relevance of their own
+    static List<NewsArticle> mergeLocal(List<NewsArticle> fetched, List<NewsArticle> local, String orderBy) {
+        if (local.isEmpty()) {
+            return fetched;
+        }
+
+        List<NewsArticle> merged = new ArrayList<>(fetched.size() + local.size());
+        Set<String> urls = new HashSet<>((fetched.size() + local.size()) * 2);
+        for (NewsArticle article : fetched) {
+            if (urls.add(article.getUrl())) {
+                merged.add(article);
+            }
+        }
+        for (NewsArticle article : local) {
+            if (urls.add(article.getUrl())) {
+                merged.add(article);
+            }
+        }
+
+        if (NewsQuery.ORDER_BY_NEWEST.equals(orderBy)) {
+            Collections.sort(merged, NEWEST_FIRST);
+        }
+
+        return merged;
+    }
+
+    //the merged articles of one page of every term
+    public static final class Result {
+        private final List<NewsArticle> mArticles;
+        private final boolean mLastPage;
+
+        Result(List<NewsArticle> articles, boolean lastPage) {
+            mArticles = articles;
+            mLastPage = lastPage;
+        }
+
+        //get the merged articles
+        public List<NewsArticle> getArticles() {
+            return mArticles;
+        }
+
+        //whether none of the terms has a further page
+        public boolean isLastPage() {
+            return mLastPage;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.android.localnews;
+
+import android.annotation.TargetApi;
+import android.app.Activity;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Printer;
+import android.view.Choreographer;
+import android.view.FrameMetrics;
+import android.view.Window;
+import android.widget.AbsListView;
+
+import java.util.concurrent.TimeUnit;
+
+//records the frames of the news list while the user moves it, and the messages blocking the main
+//thread meanwhile, into the scroll metrics, from the frame metrics of the window where the platform
+//has them and from the frame callbacks of the choreographer before that, nothing is hooked up
+//until it is started and the list moves
+public class ScrollMonitor {
+
+    //delivers the frame metrics off the main thread, shared by every monitor
+    private static HandlerThread sMetricsThread;
+
+    private final Activity mActivity;
+
+    //the refresh interval of the display the list is on
+    private final long mFrameIntervalNanos;
+
+    //whether the monitor is hooked up, and whether the list is moving, read on the metrics thread
+    private boolean mStarted;
+    private volatile boolean mMoving;
+
+    //the start of the frame before, in the choreographer's fallback, 0 before the first one
+    private long mLastFrameNanos;
+
+    //when the message running on the main thread started, 0 between messages
+    private long mMessageStartNanos;
+
+    //the listener of the window's frame metrics, added while the list moves on platforms that have them
+    private Object mFrameMetricsListener;
+
+    //times the frames from one to the next where the window's frame metrics aren't available
+    private final Choreographer.FrameCallback mFrameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            if (mLastFrameNanos != 0) {
+                ScrollMetrics.recordFrameInterval(frameTimeNanos - mLastFrameNanos, mFrameIntervalNanos);
+            }
+            if (mMoving) {
+                mLastFrameNanos = frameTimeNanos;
+                Choreographer.getInstance().postFrameCallback(this);
+            } else {
+                mLastFrameNanos = 0;
+            }
+        }
+    };
+
+    //the looper prints a line before and after each message it dispatches, which times them,
+    //building the lines costs an allocation per message so it is only installed while the list
+    //moves, and takes the place of any other printer of the main looper meanwhile
+    private final Printer mMessagePrinter = new Printer() {
+        @Override
+        public void println(String line) {
+            if (line.startsWith(">")) {
+                mMessageStartNanos = System.nanoTime();
+            } else if (mMessageStartNanos != 0) {
+                ScrollMetrics.recordMessage(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - mMessageStartNanos));
+                mMessageStartNanos = 0;
+            }
+        }
+    };
+
+    //construct a monitor of the list of an activity
+    public ScrollMonitor(Activity activity) {
+        mActivity = activity;
+        float refreshRate = activity.getWindowManager().getDefaultDisplay().getRefreshRate();
+        mFrameIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / (refreshRate > 0 ? refreshRate : 60));
+    }
+
+    //start recording, must be called on the main thread
+    public void start() {
+        if (mStarted) {
+            return;
+        }
+        mStarted = true;
+        ScrollMetrics.setEnabled(true);
+    }
+
+    //stop recording and unhook everything, must be called on the main thread
+    public void stop() {
+        if (!mStarted) {
+            return;
+        }
+        mStarted = false;
+        if (mMoving) {
+            setMoving(false);
+        }
+        ScrollMetrics.setEnabled(false);
+        Choreographer.getInstance().removeFrameCallback(mFrameCallback);
+        mLastFrameNanos = 0;
+    }
+
+    //follow the list starting and stopping to move, passed on from its scroll listener
+    public void onScrollStateChanged(int scrollState) {
+        if (!mStarted) {
+            return;
+        }
+        boolean moving = scrollState != AbsListView.OnScrollListener.SCROLL_STATE_IDLE;
+        if (moving != mMoving) {
+            setMoving(moving);
+        }
+    }
+
+    //hook up the frame and message timing while the list moves, and unhook it while it's idle
+    private void setMoving(boolean moving) {
+        mMoving = moving;
+        if (moving) {
+            Looper.getMainLooper().setMessageLogging(mMessagePrinter);
+        } else {
+            //the message running now won't be printed as finished
+            Looper.getMainLooper().setMessageLogging(null);
+            mMessageStartNanos = 0;
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            if (moving) {
+                addFrameMetricsListener();
+            } else if (mFrameMetricsListener != null) {
+                removeFrameMetricsListener();
+            }
+        } else if (moving) {
+            //a callback still pending from before the list went idle carries on timing the frames,
+            //so it is taken off first rather than left to run alongside a second one
+            Choreographer choreographer = Choreographer.getInstance();
+            choreographer.removeFrameCallback(mFrameCallback);
+            mLastFrameNanos = 0;
+            choreographer.postFrameCallback(mFrameCallback);
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.N)
+    private void addFrameMetricsListener() {
+        Window.OnFrameMetricsAvailableListener listener = new Window.OnFrameMetricsAvailableListener() {
+            @Override
+            public void onFrameMetricsAvailable(Window window, FrameMetrics frameMetrics, int dropCountSinceLastInvocation) {
+                if (mMoving) {
+                    ScrollMetrics.recordFrame(frameMetrics.getMetric(FrameMetrics.TOTAL_DURATION),
+                            mFrameIntervalNanos);
+                }
+            }
+        };
+        mActivity.getWindow().addOnFrameMetricsAvailableListener(listener, new Handler(getMetricsLooper()));
+        mFrameMetricsListener = listener;
+    }
+
+    @TargetApi(Build.VERSION_CODES.N)
+    private void removeFrameMetricsListener() {
+        mActivity.getWindow().removeOnFrameMetricsAvailableListener(
+                (Window.OnFrameMetricsAvailableListener) mFrameMetricsListener);
+        mFrameMetricsListener = null;
+    }
+
+    private static synchronized Looper getMetricsLooper() {
+        if (sMetricsThread == null) {
+            sMetricsThread = new HandlerThread("ScrollMonitor", Process.THREAD_PRIORITY_BACKGROUND);
+            sMetricsThread.start();
+        }
+        return sMetricsThread.getLooper();
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.android.localnews;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.AsyncTask;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+//type-ahead suggestions for the search term, from the places the user searched for before and
+//from the sections and names in the titles of the articles already fetched, held in a prefix
+//index in memory so every keystroke is answered without touching the disk or the network
+public class SearchSuggestions {
+
+    //the file the search history is kept in, one count and one last use per term
+    private static final String PREFS_NAME = "search_history";
+    private static final String COUNT_PREFIX = "count:";
+    private static final String USED_PREFIX = "used:";
+
+    //the most terms kept in the search history, the least recently used are forgotten
+    private static final int MAX_HISTORY_TERMS = 50;
+
+    //the memory the index may take
+    private static final long MAX_INDEX_BYTES = 256 * 1024;
+
+    //the stored articles read into the index when it is first used
+    private static final int MAX_INDEXED_ARTICLES = 500;
+
+    //a term the user searched for counts this many times more than a sighting in an article
+    private static final double QUERY_WEIGHT = 5;
+
+    //the longest name taken from a title, in words
+    private static final int MAX_PHRASE_WORDS = 3;
+
+    private static SearchSuggestions sInstance;
+
+    private final Context mContext;
+    private final SuggestionIndex mIndex = new SuggestionIndex(MAX_INDEX_BYTES);
+
+    private SearchSuggestions(Context context) {
+        mContext = context;
+    }
+
+    //get the single index shared by the whole app, filled in the background the first time
+    public static synchronized SearchSuggestions getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new SearchSuggestions(context.getApplicationContext());
+            sInstance.load();
+        }
+        return sInstance;
+    }
+
+    //get up to max suggestions completing a prefix, best first, must be quick enough for every keystroke
+    public List<String> suggest(String prefix, int max) {
+        return mIndex.suggest(prefix, max);
+    }
+
+    //count the terms of a search the user made and remember them for the next launch
+    public void recordSearch(String searchTerm) {
+        long now = System.currentTimeMillis();
+        SharedPreferences prefs = mContext.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        SharedPreferences.Editor editor = prefs.edit();
+        for (String term : NewsQuery.splitTerms(searchTerm)) {
+            if (term.isEmpty()) {
+                continue;
+            }
+            mIndex.add(term, QUERY_WEIGHT, now);
+            editor.putInt(COUNT_PREFIX + term, prefs.getInt(COUNT_PREFIX + term, 0) + 1);
+            editor.putLong(USED_PREFIX + term, now);
+        }
+        editor.apply();
+        trimHistory(prefs);
+    }
+
+    //add the sections and the names in the titles of fetched articles, may be called on any thread
+    public void addArticles(List<NewsArticle> articles) {
+        long now = System.currentTimeMillis();
+        for (NewsArticle article : articles) {
+            long seen = article.getPublished() == NewsArticle.NO_DATE ? now : Math.min(now, article.getPublished());
+            if (article.getSection() != null) {
+                mIndex.add(article.getSection(), 1, seen);
+            }
+            if (article.getTitle() != null) {
+                for (String phrase : phrasesOf(article.getTitle())) {
+                    mIndex.add(phrase, 1, seen);
+                }
+            }
+        }
+    }
+
+    //fill the index from the search history and the stored articles
+    private void load() {
+        AsyncTask.execute(new Runnable() {
+            @Override
+            public void run() {
+                SharedPreferences prefs = mContext.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+                for (Map.Entry<String, ?> entry : prefs.getAll().entrySet()) {
+                    if (entry.getKey().startsWith(COUNT_PREFIX)) {
+                        String term = entry.getKey().substring(COUNT_PREFIX.length());
+                        int count = (Integer) entry.getValue();
+                        mIndex.add(term, QUERY_WEIGHT * count, prefs.getLong(USED_PREFIX + term, 0));
+                    }
+                }
+                addArticles(ArticleStore.getInstance(mContext).getIndexedArticles(MAX_INDEXED_ARTICLES));
+            }
+        });
+    }
+
+    //forget the least recently used terms beyond the size of the history
+    private static void trimHistory(SharedPreferences prefs) {
+        List<Long> used = new ArrayList<>();
+        for (Map.Entry<String, ?> entry : prefs.getAll().entrySet()) {
+            if (entry.getKey().startsWith(USED_PREFIX)) {
+                used.add((Long) entry.getValue());
+            }
+        }
+        if (used.size() <= MAX_HISTORY_TERMS) {
+            return;
+        }
+
+        Collections.sort(used);
+        long oldestKept = used.get(used.size() - MAX_HISTORY_TERMS);
+        SharedPreferences.Editor editor = prefs.edit();
+        for (Map.Entry<String, ?> entry : prefs.getAll().entrySet()) {
+            if (entry.getKey().startsWith(USED_PREFIX) && (Long) entry.getValue() < oldestKept) {
+                String term = entry.getKey().substring(USED_PREFIX.length());
+                editor.remove(USED_PREFIX + term).remove(COUNT_PREFIX + term);
+            }
+        }
+        editor.apply();
+    }
+
+    //the names in a title, runs of up to a few capitalized words such as "Washoe County",
+    //a capitalized first word on its own is left out since titles start with one anyway
+    static List<String> phrasesOf(String title) {
+        List<String> phrases = new ArrayList<>();
+        String[] words = title.trim().split("\\s+");
+        int start = -1;
+        for (int i = 0; i <= words.length; i++) {
+            String word = i < words.length ? stripPunctuation(words[i]) : "";
+            boolean capitalized = !word.isEmpty() && Character.isUpperCase(word.charAt(0));
+            if (capitalized && start == -1) {
+                start = i;
+            }
+
+            //a run ends at a word that isn't capitalized, after punctuation or once it is long enough
+            boolean endsRun = start != -1 && (!capitalized || (i > start && endsClause(words[i - 1]))
+                    || i - start == MAX_PHRASE_WORDS);
+            if (endsRun) {
+                addPhrase(phrases, words, start, i);
+                start = capitalized ? i : -1;
+            }
+        }
+        return phrases;
+    }
+
+    private static void addPhrase(List<String> phrases, String[] words, int start, int end) {
+        if (start == 0 && end == 1) {
+            return;
+        }
+        StringBuilder phrase = new StringBuilder();
+        for (int i = start; i < end; i++) {
+            if (i > start) {
+                phrase.append(' ');
+            }
+            phrase.append(stripPunctuation(words[i]));
+        }
+        phrases.add(phrase.toString());
+    }
+
+    //whether a word ends a clause, so the next word doesn't continue its name
+    private static boolean endsClause(String word) {
+        char last = word.charAt(word.length() - 1);
+        return !Character.isLetterOrDigit(last);
+    }
+
+    //a word without the quotes and punctuation around it
+    private static String stripPunctuation(String word) {
+        int start = 0;
+        int end = word.length();
+        while (start < end && !Character.isLetterOrDigit(word.charAt(start))) {
+            start++;
+        }
+        while (end > start && !Character.isLetterOrDigit(word.charAt(end - 1))) {
+            end--;
+        }
+        return word.substring(start, end);
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.android.localnews;
+
+import android.content.Context;
+import android.preference.EditTextPreference;
+import android.text.Editable;
+import android.text.TextWatcher;
+import android.util.AttributeSet;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.AdapterView;
+import android.widget.ArrayAdapter;
+import android.widget.EditText;
+import android.widget.ListView;
+
+import java.util.List;
+
+//the search term setting, suggesting places to complete the term being typed as the user types
+//so they needn't search blind, a search of several places is completed one place at a time
+public class SearchTermPreference extends EditTextPreference {
+
+    //the suggestions shown under the search term
+    private static final int MAX_SUGGESTIONS = 5;
+
+    //separates the places of a search term
+    private static final String TERM_SEPARATOR = ",";
+
+    private ArrayAdapter<String> mSuggestions;
+
+    //updates the suggestions on every keystroke, the edit text is kept between dialogs
+    //so it is only ever listened to once
+    private final TextWatcher mWatcher = new TextWatcher() {
+        @Override
+        public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+        }
+
+        @Override
+        public void onTextChanged(CharSequence s, int start, int before, int count) {
+        }
+
+        @Override
+        public void afterTextChanged(Editable s) {
+            showSuggestions(s.toString());
+        }
+    };
+
+    public SearchTermPreference(Context context, AttributeSet attrs) {
+        super(context, attrs);
+    }
+
+    //show the suggestions under the search term in the dialog
+    @Override
+    protected void onAddEditTextToDialogView(View dialogView, final EditText editText) {
+        super.onAddEditTextToDialogView(dialogView, editText);
+        ViewGroup container = (ViewGroup) editText.getParent();
+        if (container == null) {
+            return;
+        }
+
+        mSuggestions = new ArrayAdapter<>(getContext(), android.R.layout.simple_list_item_1);
+        ListView suggestionList = new ListView(getContext());
+        suggestionList.setAdapter(mSuggestions);
+        container.addView(suggestionList, ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT);
+
+        //picking a suggestion replaces the place being typed with it
+        suggestionList.setOnItemClickListener(new AdapterView.OnItemClickListener() {
+            @Override
+            public void onItemClick(AdapterView<?> parent, View view, int position, long id) {
+                String text = editText.getText().toString();
+                int separator = text.lastIndexOf(TERM_SEPARATOR);
+                String completed = separator == -1
+                        ? mSuggestions.getItem(position)
+                        : text.substring(0, separator + 1) + " " + mSuggestions.getItem(position);
+                editText.setText(completed);
+                editText.setSelection(completed.length());
+            }
+        });
+
+        editText.removeTextChangedListener(mWatcher);
+        editText.addTextChangedListener(mWatcher);
+        showSuggestions(editText.getText().toString());
+    }
+
+    //show the suggestions for the place being typed, the text after the last separator
+    private void showSuggestions(String text) {
+        String prefix = text.substring(text.lastIndexOf(TERM_SEPARATOR) + 1);
+        List<String> suggestions = SearchSuggestions.getInstance(getContext()).suggest(prefix, MAX_SUGGESTIONS);
+        mSuggestions.setNotifyOnChange(false);
+        mSuggestions.clear();
+        mSuggestions.addAll(suggestions);
+        mSuggestions.notifyDataSetChanged();
+    }
+
+    //remember a search term the user settled on so it is suggested first next time
+    @Override
+    protected void onDialogClosed(boolean positiveResult) {
+        super.onDialogClosed(positiveResult);
+        if (positiveResult) {
+            SearchSuggestions.getInstance(getContext()).recordSearch(getText());
+        }
+    }
+}
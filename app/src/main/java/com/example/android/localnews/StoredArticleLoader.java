@@ -0,0 +1,41 @@
+package com.example.android.localnews;
+
+import android.content.AsyncTaskLoader;
+import android.content.Context;
+
+import java.util.List;
+
+//loader for the stored result of a query, used to show something before the network answers
+public class StoredArticleLoader extends AsyncTaskLoader<List<NewsArticle>> {
+
+    //the query whose stored result will be read
+    private final NewsQuery mQuery;
+
+    //when the loaded result was fetched, written on the loader thread
+    private volatile long mFetchedAt = ArticleStore.NOT_STORED;
+
+    //construct a new loader for a given query
+    public StoredArticleLoader(Context context, NewsQuery query) {
+        super(context);
+        mQuery = query;
+    }
+
+    //get when the last loaded result was fetched, or ArticleStore.NOT_STORED if there was none
+    public long getFetchedAt() {
+        return mFetchedAt;
+    }
+
+    //load the stored data set
+    @Override
+    protected void onStartLoading() {
+        forceLoad();
+    }
+
+    //read the stored articles on a background thread
+    @Override
+    public List<NewsArticle> loadInBackground() {
+        ArticleStore store = ArticleStore.getInstance(getContext());
+        mFetchedAt = store.getFetchedAt(mQuery.getKey());
+        return store.getArticles(mQuery.getKey());
+    }
+}
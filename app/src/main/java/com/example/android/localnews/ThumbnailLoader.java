@@ -0,0 +1,272 @@
+package com.example.android.localnews;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.CancellationSignal;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+import android.util.LruCache;
+import android.widget.ImageView;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//loads article thumbnails into list rows, downloading them into a disk cache, decoding them on
+//background threads at the size of the row's image view and keeping the decoded bitmaps in a
+//memory cache with a fixed byte budget, so scrolling back to a row shows its image at once
+public class ThumbnailLoader {
+
+    private static final String LOG_TAG = "ThumbnailLoader: ";
+
+    //the directory inside the app's cache directory downloaded images are stored in
+    private static final String DIRECTORY_NAME = "thumbnails";
+
+    //the total size of downloaded images before the least recently used ones are evicted
+    static final long MAX_DISK_BYTES = 16 * 1024 * 1024;
+
+    //the most decoded bitmaps may take up, or an eighth of the heap on devices with little of it
+    static final int MAX_MEMORY_BYTES = 6 * 1024 * 1024;
+
+    //images are downloaded and decoded on this many threads
+    private static final int THREADS = 2;
+
+    private static ThumbnailLoader sInstance;
+
+    //decoded bitmaps keyed by image URL, sized by their bytes rather than their number
+    private final LruCache<String, Bitmap> mMemoryCache;
+
+    //downloaded images keyed by image URL
+    private final FileLruCache mDiskCache;
+
+    //the size every thumbnail is decoded for, they all show in the same image view of a row
+    private final int mTargetWidth;
+    private final int mTargetHeight;
+
+    //decoded bitmaps are handed to their views on the main thread
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    //runs the most recently requested image first, the rows the user is looking at now
+    //matter more than the ones that scrolled past while they were queued
+    private final ThreadPoolExecutor mExecutor;
+
+    private ThumbnailLoader(Context context) {
+        int budget = (int) Math.min(MAX_MEMORY_BYTES, Runtime.getRuntime().maxMemory() / 8);
+        mMemoryCache = new LruCache<String, Bitmap>(budget) {
+            @Override
+            protected int sizeOf(String key, Bitmap bitmap) {
+                return bitmap.getAllocationByteCount();
+            }
+        };
+        mDiskCache = new FileLruCache(new File(context.getCacheDir(), DIRECTORY_NAME), MAX_DISK_BYTES);
+        mTargetWidth = context.getResources().getDimensionPixelSize(R.dimen.thumbnail_width);
+        mTargetHeight = context.getResources().getDimensionPixelSize(R.dimen.thumbnail_height);
+
+        mExecutor = new ThreadPoolExecutor(THREADS, THREADS, 30, TimeUnit.SECONDS,
+                new LinkedBlockingDeque<Runnable>() {
+                    @Override
+                    public boolean offer(Runnable runnable) {
+                        return offerFirst(runnable);
+                    }
+                },
+                new ThreadFactory() {
+                    private final AtomicInteger mCount = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(final Runnable runnable) {
+                        return new Thread(new Runnable() {
+                            @Override
+                            public void run() {
+                                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                                runnable.run();
+                            }
+                        }, "ThumbnailLoader #" + mCount.incrementAndGet());
+                    }
+                });
+        mExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    //get the single loader shared by the whole app
+    public static synchronized ThumbnailLoader getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new ThumbnailLoader(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    //show the image at a URL in a view, at once if it is in memory and otherwise once it has been
+    //loaded in the background, returns the load to cancel if the view is rebound first, or null
+    //if there is nothing to wait for, must be called on the main thread
+    public Load load(String url, ImageView view) {
+        Bitmap bitmap = url.isEmpty() ? null : mMemoryCache.get(url);
+        if (bitmap != null) {
+            view.setImageBitmap(bitmap);
+            return null;
+        }
+        view.setImageDrawable(null);
+        if (url.isEmpty()) {
+            return null;
+        }
+
+        Load load = new Load(url, view);
+        mExecutor.execute(load);
+        return load;
+    }
+
+    //give back memory when the system asks for it, all of it once the app isn't visible
+    public void trimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+            mMemoryCache.evictAll();
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            mMemoryCache.trimToSize(mMemoryCache.maxSize() / 2);
+        }
+    }
+
+    //get a stored image or download it into the disk cache, null if that failed
+    private File fetch(String url, CancellationSignal signal) {
+        File file = mDiskCache.get(url);
+        if (file != null) {
+            return file;
+        }
+
+        final HttpTransport.Call call = Utilities.getTransport().newCall(new HttpTransport.Request(url));
+        signal.setOnCancelListener(new CancellationSignal.OnCancelListener() {
+            @Override
+            public void onCancel() {
+                call.cancel();
+            }
+        });
+        HttpTransport.Response response = null;
+        try {
+            response = call.execute();
+            if (response.getCode() != 200) {
+                Log.e(LOG_TAG, "Error response code: " + response.getCode());
+                return null;
+            }
+            return mDiskCache.put(url, response.getBody());
+        } catch (IOException e) {
+            if (!signal.isCanceled()) {
+                Log.e(LOG_TAG, "Problem downloading a thumbnail.", e);
+            }
+            return null;
+        } finally {
+            signal.setOnCancelListener(null);
+            if (response != null) {
+                response.close();
+            }
+        }
+    }
+
+    //decode an image file no larger than needed to fill the target size
+    private Bitmap decode(String url, File file) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(file.getPath(), options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            //not an image we can read, don't keep it around
+            mDiskCache.remove(url);
+            return null;
+        }
+
+        //sampling only shrinks by powers of two, density scaling takes the decode the rest of the way
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSizeFor(options.outWidth, options.outHeight, mTargetWidth, mTargetHeight);
+        int sampledWidth = options.outWidth / options.inSampleSize;
+        int sampledHeight = options.outHeight / options.inSampleSize;
+        if (sampledWidth * mTargetHeight > sampledHeight * mTargetWidth) {
+            options.inDensity = sampledHeight;
+            options.inTargetDensity = mTargetHeight;
+        } else {
+            options.inDensity = sampledWidth;
+            options.inTargetDensity = mTargetWidth;
+        }
+        options.inScaled = options.inTargetDensity < options.inDensity;
+
+        //thumbnails are opaque photos, so half the bytes of ARGB_8888 lose nothing that shows
+        options.inPreferredConfig = Bitmap.Config.RGB_565;
+        Bitmap bitmap = BitmapFactory.decodeFile(file.getPath(), options);
+
+        //the densities were only a way to scale, the view should draw the pixels as they are
+        if (bitmap != null) {
+            bitmap.setDensity(Bitmap.DENSITY_NONE);
+        }
+        return bitmap;
+    }
+
+    //the largest power of two an image can be sampled down by and still cover the target size
+    //along both sides, the way a center cropped view shows it
+    static int sampleSizeFor(int width, int height, int targetWidth, int targetHeight) {
+        int sampleSize = 1;
+        while (width / (sampleSize * 2) >= targetWidth && height / (sampleSize * 2) >= targetHeight) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    //the loading of one image for one view, cancelled when the view is rebound or scrolls away
+    public class Load implements Runnable {
+        private final String mUrl;
+        private final ImageView mView;
+        private final CancellationSignal mSignal = new CancellationSignal();
+
+        //only touched on the main thread, so a cancelled load can never show its bitmap
+        private boolean mCancelled;
+        private boolean mShown;
+
+        private Load(String url, ImageView view) {
+            mUrl = url;
+            mView = view;
+        }
+
+        //whether the image has been shown in the view, must be called on the main thread
+        public boolean isShown() {
+            return mShown;
+        }
+
+        //stop the load and leave the view alone, must be called on the main thread
+        public void cancel() {
+            mCancelled = true;
+            mSignal.cancel();
+            mExecutor.remove(this);
+        }
+
+        @Override
+        public void run() {
+            if (mSignal.isCanceled()) {
+                return;
+            }
+            //another row may have loaded the same image while this one was queued
+            Bitmap bitmap = mMemoryCache.get(mUrl);
+            if (bitmap == null) {
+                File file = fetch(mUrl, mSignal);
+                if (file == null || mSignal.isCanceled()) {
+                    return;
+                }
+                bitmap = decode(mUrl, file);
+                if (bitmap == null) {
+                    return;
+                }
+                mMemoryCache.put(mUrl, bitmap);
+            }
+
+            final Bitmap loaded = bitmap;
+            mMainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    if (!mCancelled) {
+                        mView.setImageBitmap(loaded);
+                        mShown = true;
+                    }
+                }
+            });
+        }
+    }
+}
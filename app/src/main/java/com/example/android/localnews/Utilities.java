@@ -1,107 +1,38 @@
 package com.example.android.localnews;
 
 import android.content.Context;
-import android.text.TextUtils;
+import android.os.CancellationSignal;
+import android.os.SystemClock;
 import android.util.Log;
 
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
-
-import java.io.BufferedReader;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
+import java.io.InterruptedIOException;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.nio.charset.Charset;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.Date;
 import java.util.List;
 
 //utility class providing several helper methods
 public class Utilities {
 
-    private static final int readTimeout = 10000;
-    private static final int connectTimeout = 15000;
     private static final int successResponse = 200;
+    private static final int notModifiedResponse = 304;
 
-    private Utilities() {
-    }
-
-    //parse a JSON string into a news article list
-    private static List<NewsArticle> extractFeatureFromJson(String newsArticleJSON) {
-        // If the JSON string is empty or null, then return early.
-        if (TextUtils.isEmpty(newsArticleJSON)) {
-            return null;
-        }
-
-        // Create an empty ArrayList that we can start adding news articles to
-        List<NewsArticle> newsArticles = new ArrayList<>();
-
-        // Try to parse the JSON response string. If there's a problem with the way the JSON
-        // is formatted, a JSONException exception object will be thrown.
-        // Catch the exception so the app doesn't crash, and print the error message to the logs.
-        try {
-
-            // Create a JSONObject from the JSON response string
-            JSONObject baseJsonResponse = new JSONObject(newsArticleJSON);
-
-            JSONObject resultsJsonObject = baseJsonResponse.getJSONObject("response");
-
-            //Extract the JSONArray associated with the key called "results",
-            //which represents a list of articles
-            JSONArray newsArticleArray = resultsJsonObject.getJSONArray("results");
-
-            //For each article in the article array, create an NewsArticle object
-            for (int i = 0; i < newsArticleArray.length(); i++) {
-
-                //Get a single article at position i within the list of articles
-                JSONObject currentNewsArticle = newsArticleArray.getJSONObject(i);
-
-                //Extract the value for the key called "webTitle"
-                String title = currentNewsArticle.optString("webTitle");
-
-                //Extract the value for the key called "sectionName"
-                String section = currentNewsArticle.optString("sectionName");
-
-                //Extract the value for the key called "webUrl"
-                String url = currentNewsArticle.optString("webUrl");
-
-                //Extract the tags array from the current news article and then get
-                //the author name from the key call "webTitle"
-                String author;
+    //the limits of our Guardian API key, kept a little under what the developer tier allows
+    private static final int REQUESTS_PER_SECOND = 10;
+    private static final int REQUESTS_PER_DAY = 4800;
 
-                if (currentNewsArticle.has("tags")) {
-                    JSONArray tagsArray = currentNewsArticle.getJSONArray("tags");
-                    JSONObject tagsObject = tagsArray.getJSONObject(0);
-                    author = tagsObject.optString("webTitle");
-                } else {
-                    author = "No Author Provided";
-                }
+    //the longest a foreground request waits for the budget before it gives up
+    private static final long MAX_BUDGET_WAIT_MILLIS = 5000;
 
-                Date parsedDate = formatDateString(currentNewsArticle.optString("webPublicationDate"));
+    //the budget every request made with our API key is sent within
+    private static final RequestBudget sBudget = new RequestBudget(REQUESTS_PER_SECOND, REQUESTS_PER_DAY);
 
-                // Create a new {@link NewsArticle} object with the title, author, section,
-                // url, and date from the JSON response.
-                NewsArticle newsArticle = new NewsArticle(title, author, section, url, parsedDate);
+    //the transport our requests are sent through
+    private static final HttpTransport sTransport = new OkHttpTransport();
 
-                // Add the new article to the list of news articles.
-                newsArticles.add(newsArticle);
-            }
-
-        } catch (JSONException e) {
-            // If an error is thrown when executing any of the above statements in the "try" block,
-            // catch the exception here, so the app doesn't crash. Print a log message
-            // with the message from the exception.
-            Log.e("Utilities: ", "Problem parsing the newsArticle JSON results", e);
-        }
-
-        // Return the list of newsArticles
-        return newsArticles;
+    private Utilities() {
     }
 
     //create a new URL object from a given string URL.
@@ -115,108 +46,242 @@ public class Utilities {
         return url;
     }
 
+    //get the transport requests are sent through, for downloads that aren't API requests
+    static HttpTransport getTransport() {
+        return sTransport;
+    }
 
-    //Make a HTTP request to a given URL and return a String as the response.
-    private static String makeHttpRequest(URL url) throws IOException {
-        String jsonResponse = "";
 
-        // If the URL is null, then return early.
-        if (url == null) {
-            return jsonResponse;
+    //Make a HTTP request and parse the response stream into a news article list.
+    //Responses are kept in the HTTP cache, so a repeat request is made conditional and an
+    //unchanged response is served from the cache instead of being downloaded and parsed again.
+    //Cancelling the signal closes the connection and stops parsing mid-stream.
+    private static List<NewsArticle> makeHttpRequest(Context context, HttpTransport.Request request,
+                                                     RequestBudget.Priority priority, CancellationSignal signal) {
+        HttpCache cache = HttpCache.getInstance(context);
+        List<NewsArticle> newsArticles = null;
+
+        // If the stored response is still fresh we don't need to ask the server at all
+        HttpCache.Entry cached = cache.get(request.getUrl());
+        if (cached != null && cached.isFresh()) {
+            try {
+                newsArticles = cache.getArticles(cached);
+                cache.recordHit(cached);
+                return newsArticles;
+            } catch (IOException e) {
+                Log.e("Utilities: ", "Problem reading the cached newsArticle JSON results.", e);
+            }
         }
 
-        HttpURLConnection urlConnection = null;
-        InputStream inputStream = null;
+        // Send the validators of the stored response so the server can answer 304
+        if (cached != null) {
+            if (cached.getEtag() != null) {
+                request.setHeader("If-None-Match", cached.getEtag());
+            }
+            if (cached.getLastModified() != null) {
+                request.setHeader("If-Modified-Since", cached.getLastModified());
+            }
+        }
+
+        // Only go to the server if the API key's budget allows it
+        if (!acquireBudget(priority, signal)) {
+            return null;
+        }
+
+        // Have the transport time the stages of the request for the fetch metrics
+        FetchTimings timings = new FetchTimings();
+        request.setTimings(timings);
+
+        // Cancelling the signal cancels the call, failing any blocked connect or read
+        final HttpTransport.Call call = sTransport.newCall(request);
+        signal.setOnCancelListener(new CancellationSignal.OnCancelListener() {
+            @Override
+            public void onCancel() {
+                call.cancel();
+            }
+        });
+
+        HttpTransport.Response response = null;
+        HttpCache.Editor cacheEditor = null;
         try {
-            urlConnection = (HttpURLConnection) url.openConnection();
-            urlConnection.setReadTimeout(readTimeout /* milliseconds */);
-            urlConnection.setConnectTimeout(connectTimeout /* milliseconds */);
-            urlConnection.setRequestMethod("GET");
-            urlConnection.connect();
-
-            // If the request was successful (response code 200),
-            // then read the input stream and parse the response.
-            if (urlConnection.getResponseCode() == successResponse) {
-                inputStream = urlConnection.getInputStream();
-                jsonResponse = readFromStream(inputStream);
+            response = call.execute();
+
+            int responseCode = response.getCode();
+            sBudget.onResponse(responseCode, response.getHeader("Retry-After"));
+            if (responseCode == successResponse) {
+                // If the request was successful (response code 200), then parse the articles
+                // straight off the response body while copying it into the cache.
+                cacheEditor = cache.edit(request.getUrl());
+                newsArticles = NewsArticleParser.parse(new CancellableInputStream(
+                        cacheEditor.newSource(timings.instrument(response.getBody())), signal));
+                timings.bodyEnd(newsArticles.size());
+
+                HttpCache.Entry entry = cacheEditor.commit(response.getHeader("ETag"),
+                        response.getHeader("Last-Modified"), response.getHeader("Cache-Control"));
+                cacheEditor = null;
+                newsArticles = cache.putArticles(entry, newsArticles);
+                cache.recordMiss(entry);
+
+                // A whole body downloaded tells us how fast the network is for sizing the next pages
+                NetworkPolicy.recordFetch(context, timings);
+            } else if (responseCode == notModifiedResponse && cached != null) {
+                // The body hasn't changed, so serve the articles we already have
+                cached = cache.refresh(cached, response.getHeader("Cache-Control"));
+                newsArticles = cache.getArticles(cached);
+                cache.recordRevalidation(cached);
+            } else if (responseCode == 429) {
+                Log.w("Utilities: ", "Throttled by the server, holding back requests.");
             } else {
-                Log.e("Utilities: ", "Error response code: " + urlConnection.getResponseCode());
+                Log.e("Utilities: ", "Error response code: " + responseCode);
             }
+            FetchMetrics.record(timings);
         } catch (IOException e) {
-            Log.e("Utilities: ", "Problem retrieving the newsArticle JSON results.", e);
+            if (signal.isCanceled()) {
+                Log.d("Utilities: ", "Cancelled retrieving the newsArticle JSON results.");
+                newsArticles = null;
+            } else {
+                Log.e("Utilities: ", "Problem retrieving the newsArticle JSON results.", e);
+            }
         } finally {
-            if (urlConnection != null) {
-                urlConnection.disconnect();
+            if (response == null) {
+                sBudget.onNoResponse();
             }
-            if (inputStream != null) {
-                // Closing the input stream could throw an IOException, which is why
-                // the makeHttpRequest(URL url) method signature specifies than an IOException
-                // could be thrown.
-                inputStream.close();
+            signal.setOnCancelListener(null);
+            if (cacheEditor != null) {
+                cacheEditor.abort();
+            }
+            // Closing the response hands its connection back to the transport for reuse
+            if (response != null) {
+                response.close();
             }
         }
-        return jsonResponse;
+
+        //only debug builds pay for building the summary on every fetch
+        if (BuildConfig.DEBUG) {
+            Log.d("Utilities: ", "HTTP cache " + cache.getStatsSummary());
+        }
+        return newsArticles;
     }
 
 
-    //Convert an InputString into a String which contains the
-    //whole JSON response from the server.
-    private static String readFromStream(InputStream inputStream) throws IOException {
-        StringBuilder output = new StringBuilder();
-        if (inputStream != null) {
-            InputStreamReader inputStreamReader = new InputStreamReader(inputStream, Charset.forName("UTF-8"));
-            BufferedReader reader = new BufferedReader(inputStreamReader);
-            String line = reader.readLine();
-            while (line != null) {
-                output.append(line);
-                line = reader.readLine();
+    //Take a token from the request budget, waiting for one if a foreground request can get it soon.
+    //Returns false if the request shouldn't be sent.
+    private static boolean acquireBudget(RequestBudget.Priority priority, CancellationSignal signal) {
+        long waited = 0;
+        while (!signal.isCanceled()) {
+            long wait = sBudget.tryAcquire(priority);
+            if (wait == 0) {
+                return true;
             }
+            // Background work tries again on its next run rather than holding a thread
+            if (wait == RequestBudget.DENIED || priority == RequestBudget.Priority.BACKGROUND
+                    || waited + wait > MAX_BUDGET_WAIT_MILLIS) {
+                Log.w("Utilities: ", "Request budget exhausted, not sending the request.");
+                return false;
+            }
+            // Sleep in short steps so a cancelled fetch stops waiting promptly
+            long step = Math.min(wait, 100);
+            SystemClock.sleep(step);
+            waited += step;
         }
-        return output.toString();
+        return false;
     }
 
+    //get the budget requests with our API key are sent within
+    public static RequestBudget getRequestBudget() {
+        return sBudget;
+    }
 
-    //Query the Guardian dataset and return a list of news article objects.
-    public static List<NewsArticle> fetchNewsArticleData(String requestUrl) {
+    //Query the Guardian dataset with the default timeouts and return a list of news article objects.
+    public static List<NewsArticle> fetchNewsArticleData(Context context, String requestUrl) {
+        return fetchNewsArticleData(context, new HttpTransport.Request(requestUrl),
+                RequestBudget.Priority.FOREGROUND, new CancellationSignal());
+    }
 
-        // Create URL object
-        URL url = createUrl(requestUrl);
+    //Query the Guardian dataset and return a list of news article objects,
+    //or null if the request failed, was held back by the request budget or was cancelled through the signal.
+    public static List<NewsArticle> fetchNewsArticleData(Context context, HttpTransport.Request request,
+                                                         RequestBudget.Priority priority,
+                                                         CancellationSignal signal) {
 
-        // Perform HTTP request to the URL and receive a JSON response back
-        String jsonResponse = null;
-        try {
-            jsonResponse = makeHttpRequest(url);
-        } catch (IOException e) {
-            Log.e("Utilities: ", "Problem making the HTTP request.", e);
+        // If the URL is invalid or the fetch is no longer wanted, then return early.
+        if (createUrl(request.getUrl()) == null || signal.isCanceled()) {
+            return null;
         }
 
-        // Extract relevant fields from the JSON response and create a list of news articles
-        List<NewsArticle> newsArticles = extractFeatureFromJson(jsonResponse);
-
-        // Return the list of news articles
-        return newsArticles;
+        // Perform HTTP request to the URL and parse the JSON response as it arrives
+        return makeHttpRequest(context, request, priority, signal);
     }
 
-    //convert a string date into a Date object
-    private static Date formatDateString(String stringDate) {
-        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssZ");
+    //Request the body text of a single article from the Guardian item endpoint, or null if the request
+    //failed, was held back by the request budget or was cancelled through the signal.
+    public static String fetchArticleBody(String requestUrl, RequestBudget.Priority priority,
+                                          CancellationSignal signal) {
+        if (createUrl(requestUrl) == null || signal.isCanceled() || !acquireBudget(priority, signal)) {
+            return null;
+        }
 
-        Date date;
+        final HttpTransport.Call call = sTransport.newCall(new HttpTransport.Request(requestUrl));
+        signal.setOnCancelListener(new CancellationSignal.OnCancelListener() {
+            @Override
+            public void onCancel() {
+                call.cancel();
+            }
+        });
 
+        HttpTransport.Response response = null;
         try {
-            date = dateFormat.parse(stringDate.replaceAll("Z$", "+0000"));
-        } catch (ParseException e) {
-            date = null;
-            Log.e("Utilities: ", "Problem formatting the date.", e);
-        }
+            response = call.execute();
 
-        return date;
+            int responseCode = response.getCode();
+            sBudget.onResponse(responseCode, response.getHeader("Retry-After"));
+            if (responseCode == successResponse) {
+                return NewsArticleParser.parseBodyText(new CancellableInputStream(response.getBody(), signal));
+            }
+            Log.e("Utilities: ", "Error response code: " + responseCode);
+        } catch (IOException e) {
+            if (!signal.isCanceled()) {
+                Log.e("Utilities: ", "Problem retrieving the article body.", e);
+            }
+        } finally {
+            if (response == null) {
+                sBudget.onNoResponse();
+            }
+            signal.setOnCancelListener(null);
+            if (response != null) {
+                response.close();
+            }
+        }
+        return null;
     }
 
-    //Return a formatted date string from a Date object.
-    public static String formatDate(Date dateObject) {
-        SimpleDateFormat dateFormat = new SimpleDateFormat("LLL dd, yyyy");
-        return dateFormat.format(dateObject);
+    //input stream that fails as soon as its fetch is cancelled, so the parser stops mid-stream
+    //even when the bytes are already buffered and no blocked read would be interrupted
+    private static class CancellableInputStream extends FilterInputStream {
+        private final CancellationSignal mSignal;
+
+        CancellableInputStream(InputStream in, CancellationSignal signal) {
+            super(in);
+            mSignal = signal;
+        }
+
+        @Override
+        public int read() throws IOException {
+            throwIfCanceled();
+            return super.read();
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int count) throws IOException {
+            throwIfCanceled();
+            return super.read(buffer, offset, count);
+        }
+
+        private void throwIfCanceled() throws IOException {
+            if (mSignal.isCanceled()) {
+                throw new InterruptedIOException("Fetch cancelled");
+            }
+        }
     }
 
 }
@@ -0,0 +1,103 @@
+package com.example.android.localnews;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.example.android.localnews.TestArticles.BASE;
+import static com.example.android.localnews.TestArticles.HOUR;
+import static com.example.android.localnews.TestArticles.article;
+import static com.example.android.localnews.TestArticles.urls;
+import static org.junit.Assert.*;
+
+/**
+ * Checks how the articles of a delta refresh are merged into the stored first page.
+ */
+public class DeltaRefreshTest {
+
+    @Test
+    public void merge_putsNewArticlesFirst() {
+        List<NewsArticle> stored = Arrays.asList(article("b", -1), article("c", -2));
+        List<NewsArticle> delta = Arrays.asList(article("a", 0), article("b", -1));
+
+        assertEquals(Arrays.asList("a", "b", "c"), urls(DeltaRefresh.merge(delta, stored, NewsQuery.DEFAULT_PAGE_SIZE)));
+    }
+
+    @Test
+    public void merge_prefersTheFetchedCopy() {
+        NewsArticle storedCopy = article("a", 0);
+        NewsArticle fetchedCopy = new NewsArticle("Updated title", "Author", "Section", "a", BASE);
+
+        List<NewsArticle> merged = DeltaRefresh.merge(Collections.singletonList(fetchedCopy),
+                Collections.singletonList(storedCopy), NewsQuery.DEFAULT_PAGE_SIZE);
+
+        assertSame(fetchedCopy, merged.get(0));
+        assertEquals(1, merged.size());
+    }
+
+    @Test
+    public void merge_keepsAFullPage() {
+        List<NewsArticle> stored = new ArrayList<>();
+        for (int i = 0; i < NewsQuery.DEFAULT_PAGE_SIZE; i++) {
+            stored.add(article("old" + i, -i - 1));
+        }
+        List<NewsArticle> delta = Arrays.asList(article("new0", 1), article("new1", 0));
+
+        List<NewsArticle> merged = DeltaRefresh.merge(delta, stored, NewsQuery.DEFAULT_PAGE_SIZE);
+
+        assertEquals(NewsQuery.DEFAULT_PAGE_SIZE, merged.size());
+        assertEquals("new0", merged.get(0).getUrl());
+        assertEquals("old" + (NewsQuery.DEFAULT_PAGE_SIZE - 3), merged.get(NewsQuery.DEFAULT_PAGE_SIZE - 1).getUrl());
+    }
+
+    @Test
+    public void merge_keepsThePageSizeOfTheRefresh() {
+        //a result stored from larger pages is cut to the page size later pages are fetched with
+        List<NewsArticle> stored = Arrays.asList(article("b", -1), article("c", -2), article("d", -3));
+        List<NewsArticle> delta = Collections.singletonList(article("a", 0));
+
+        assertEquals(Arrays.asList("a", "b"), urls(DeltaRefresh.merge(delta, stored, 2)));
+    }
+
+    @Test
+    public void usableStored_dropsAPageFetchedAtAnotherSize() {
+        //a short page stored on a network with smaller pages, refreshed on one with larger pages
+        List<NewsArticle> stored = Arrays.asList(article("b", -1), article("c", -2));
+
+        assertTrue(DeltaRefresh.usableStored(stored, 25, 100).isEmpty());
+        assertSame(stored, DeltaRefresh.usableStored(stored, 100, 100));
+    }
+
+    @Test
+    public void mergeResult_aFullStoredPageIsNotTheLastPage() {
+        List<NewsArticle> stored = Arrays.asList(article("b", -1), article("c", -2));
+        QueryFanOut.Result delta = new QueryFanOut.Result(Collections.singletonList(article("a", 0)), true);
+
+        QueryFanOut.Result result = DeltaRefresh.mergeResult(delta, stored, 2);
+
+        assertEquals(Arrays.asList("a", "b"), urls(result.getArticles()));
+        assertFalse(result.isLastPage());
+    }
+
+    @Test
+    public void mergeResult_aShortStoredPageStaysTheLastPage() {
+        List<NewsArticle> stored = Arrays.asList(article("b", -1), article("c", -2));
+        QueryFanOut.Result delta = new QueryFanOut.Result(Collections.singletonList(article("a", 0)), true);
+
+        QueryFanOut.Result result = DeltaRefresh.mergeResult(delta, stored, 3);
+
+        assertEquals(Arrays.asList("a", "b", "c"), urls(result.getArticles()));
+        assertTrue(result.isLastPage());
+    }
+
+    @Test
+    public void newestOf_skipsUndatedArticles() {
+        NewsArticle undated = new NewsArticle("undated", "Author", "Section", "undated", NewsArticle.NO_DATE);
+        assertEquals(BASE - HOUR, DeltaRefresh.newestOf(Arrays.asList(undated, article("a", -1), article("b", -3))));
+        assertEquals(NewsArticle.NO_DATE, DeltaRefresh.newestOf(Collections.singletonList(undated)));
+        assertEquals(NewsArticle.NO_DATE, DeltaRefresh.newestOf(Collections.<NewsArticle>emptyList()));
+    }
+}
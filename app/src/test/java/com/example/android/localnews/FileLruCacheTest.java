@@ -0,0 +1,77 @@
+package com.example.android.localnews;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the file cache keeps the most recently used files within its size budget.
+ */
+public class FileLruCacheTest {
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    @Test
+    public void put_storesTheWholeStream() throws IOException {
+        FileLruCache cache = new FileLruCache(mFolder.newFolder(), 1000);
+        File file = cache.put("a", bytes(300));
+
+        assertEquals(300, file.length());
+        assertEquals(file, cache.get("a"));
+        assertNull(cache.get("b"));
+    }
+
+    @Test
+    public void put_replacesWithoutCountingTwice() throws IOException {
+        FileLruCache cache = new FileLruCache(mFolder.newFolder(), 1000);
+        cache.put("a", bytes(300));
+        cache.put("a", bytes(200));
+
+        assertEquals(200, cache.getSizeBytes());
+    }
+
+    @Test
+    public void put_evictsLeastRecentlyUsed() throws IOException {
+        FileLruCache cache = new FileLruCache(mFolder.newFolder(), 1000);
+        cache.put("a", bytes(400)).setLastModified(1000);
+        cache.put("b", bytes(400)).setLastModified(2000);
+
+        //reading a makes b the least recently used
+        cache.get("a");
+        cache.put("c", bytes(400));
+
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+        assertEquals(800, cache.getSizeBytes());
+    }
+
+    @Test
+    public void getSizeBytes_countsFilesFromEarlierRuns() throws IOException {
+        File directory = mFolder.newFolder();
+        new FileLruCache(directory, 1000).put("a", bytes(300));
+
+        assertEquals(300, new FileLruCache(directory, 1000).getSizeBytes());
+    }
+
+    @Test
+    public void remove_freesTheSpace() throws IOException {
+        FileLruCache cache = new FileLruCache(mFolder.newFolder(), 1000);
+        cache.put("a", bytes(300));
+        cache.remove("a");
+
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.getSizeBytes());
+    }
+
+    private static ByteArrayInputStream bytes(int count) {
+        return new ByteArrayInputStream(new byte[count]);
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.android.localnews;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks how a search term is split into places and turned into a local search.
+ */
+public class NewsQueryTest {
+
+    @Test
+    public void splitTerms_trimsAndDropsRepeats() {
+        assertEquals(Arrays.asList("Reno", "Washoe County", "Sparks"),
+                NewsQuery.splitTerms(" Reno, Washoe County ,, reno,Sparks,"));
+        assertEquals(Collections.singletonList("Nevada"), NewsQuery.splitTerms("Nevada"));
+        assertEquals(Collections.singletonList(""), NewsQuery.splitTerms(" , "));
+    }
+
+    @Test
+    public void getKey_normalizesTerms() {
+        assertEquals("newest:reno,washoe county", new NewsQuery(" Reno ,Washoe County, RENO", "newest").getKey());
+        assertEquals("relevance:nevada", new NewsQuery("Nevada ", "relevance").getKey());
+        assertEquals(new NewsQuery("Nevada", "newest").getKey(), new NewsQuery("Nevada", "newest", 15).getKey());
+    }
+
+    @Test
+    public void withOrderBy_keepsTermsAndPageSize() {
+        NewsQuery query = new NewsQuery("Reno, Sparks", "relevance", 15).withOrderBy("newest");
+        assertEquals("newest", query.getOrderBy());
+        assertEquals("Reno, Sparks", query.getSearchTerm());
+        assertEquals(15, query.getPageSize());
+    }
+
+    @Test
+    public void getMatchQuery_matchesAnyTermAsPhrase() {
+        assertEquals("\"Reno\" OR \"Washoe County\"", new NewsQuery("Reno, Washoe County", "newest").getMatchQuery());
+        assertEquals("\"Lake  Tahoe\"", new NewsQuery("Lake \"Tahoe\"", "newest").getMatchQuery());
+        assertEquals("", new NewsQuery(" ", "newest").getMatchQuery());
+    }
+}
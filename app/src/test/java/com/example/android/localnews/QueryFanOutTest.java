@@ -0,0 +1,75 @@
+package com.example.android.localnews;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.example.android.localnews.TestArticles.article;
+import static com.example.android.localnews.TestArticles.urls;
+import static org.junit.Assert.*;
+
+/**
+ * Checks how the results of several search terms and local matches are merged.
+ */
+public class QueryFanOutTest {
+
+    @Test
+    public void merge_relevanceInterleavesByRank() {
+        List<NewsArticle> reno = Arrays.asList(article("a", 0), article("b", 0), article("c", 0));
+        List<NewsArticle> sparks = Arrays.asList(article("d", 0), article("e", 0));
+
+        List<NewsArticle> merged = QueryFanOut.merge(Arrays.asList(reno, sparks), "relevance");
+
+        assertEquals(Arrays.asList("a", "d", "b", "e", "c"), urls(merged));
+    }
+
+    @Test
+    public void merge_dropsRepeatedUrls() {
+        List<NewsArticle> reno = Arrays.asList(article("a", 0), article("shared", 0));
+        List<NewsArticle> sparks = Arrays.asList(article("shared", 0), article("b", 0));
+
+        List<NewsArticle> merged = QueryFanOut.merge(Arrays.asList(reno, sparks), "relevance");
+
+        assertEquals(Arrays.asList("a", "shared", "b"), urls(merged));
+    }
+
+    @Test
+    public void merge_newestSortsByPublicationDate() {
+        List<NewsArticle> reno = Arrays.asList(article("a", -1), article("b", -5));
+        List<NewsArticle> sparks = Arrays.asList(article("c", -2),
+                new NewsArticle("undated", "Author", "Section", "undated", NewsArticle.NO_DATE), article("d", -3));
+
+        List<NewsArticle> merged = QueryFanOut.merge(Arrays.asList(reno, sparks), NewsQuery.ORDER_BY_NEWEST);
+
+        assertEquals(Arrays.asList("a", "c", "d", "b", "undated"), urls(merged));
+    }
+
+    @Test
+    public void merge_singleTermIsUnchanged() {
+        List<NewsArticle> reno = Arrays.asList(article("a", -5), article("b", -1));
+
+        assertSame(reno, QueryFanOut.merge(Collections.singletonList(reno), NewsQuery.ORDER_BY_NEWEST));
+    }
+
+    @Test
+    public void mergeLocal_relevanceAppendsUnfetchedMatches() {
+        List<NewsArticle> fetched = Arrays.asList(article("a", -5), article("b", -1));
+        List<NewsArticle> local = Arrays.asList(article("c", 0), article("a", -5), article("d", -9));
+
+        List<NewsArticle> merged = QueryFanOut.mergeLocal(fetched, local, "relevance");
+
+        assertEquals(Arrays.asList("a", "b", "c", "d"), urls(merged));
+    }
+
+    @Test
+    public void mergeLocal_newestSortsMatchesIntoPlace() {
+        List<NewsArticle> fetched = Arrays.asList(article("a", -1), article("b", -5));
+        List<NewsArticle> local = Arrays.asList(article("c", 0), article("b", -5), article("d", -3));
+
+        List<NewsArticle> merged = QueryFanOut.mergeLocal(fetched, local, NewsQuery.ORDER_BY_NEWEST);
+
+        assertEquals(Arrays.asList("c", "a", "d", "b"), urls(merged));
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.android.localnews;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks which names are taken from article titles as search term suggestions.
+ */
+public class SearchSuggestionsTest {
+
+    @Test
+    public void phrasesOf_takesRunsOfCapitalizedWords() {
+        assertEquals(Arrays.asList("Washoe County", "Lake Tahoe"),
+                SearchSuggestions.phrasesOf("Fire crews in Washoe County contain blaze near Lake Tahoe"));
+    }
+
+    @Test
+    public void phrasesOf_leavesOutTheLoneFirstWord() {
+        assertEquals(Collections.singletonList("Reno"), SearchSuggestions.phrasesOf("Storm hits Reno"));
+        assertEquals(Collections.singletonList("Las Vegas"), SearchSuggestions.phrasesOf("Las Vegas braces for heat"));
+    }
+
+    @Test
+    public void phrasesOf_splitsAtPunctuationAndLength() {
+        assertEquals(Arrays.asList("Reno", "Sparks", "Carson City"),
+                SearchSuggestions.phrasesOf("Floods in Reno, Sparks and \"Carson City\""));
+        assertEquals(Arrays.asList("Great Basin National", "Park"),
+                SearchSuggestions.phrasesOf("visiting Great Basin National Park"));
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.android.localnews;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Articles identified by their url and dated relative to a fixed moment, shared by the tests
+ * of the code that merges and orders results.
+ */
+final class TestArticles {
+
+    static final long HOUR = 3600000L;
+    static final long BASE = 1534774325000L;
+
+    private TestArticles() {
+    }
+
+    /** Returns an article identified by its url, published some hours from a fixed moment. */
+    static NewsArticle article(String url, int hours) {
+        return new NewsArticle(url, "Author", "Section", url, BASE + hours * HOUR);
+    }
+
+    /** Returns the urls of articles in their order. */
+    static List<String> urls(List<NewsArticle> articles) {
+        List<String> urls = new ArrayList<>(articles.size());
+        for (NewsArticle article : articles) {
+            urls.add(article.getUrl());
+        }
+        return urls;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.android.localnews;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks how far images are sampled down before they are decoded for a thumbnail.
+ */
+public class ThumbnailLoaderTest {
+
+    @Test
+    public void sampleSizeFor_keepsSmallImagesWhole() {
+        assertEquals(1, ThumbnailLoader.sampleSizeFor(500, 300, 300, 180));
+        assertEquals(1, ThumbnailLoader.sampleSizeFor(100, 60, 300, 180));
+    }
+
+    @Test
+    public void sampleSizeFor_halvesWhileBothSidesStillCover() {
+        assertEquals(2, ThumbnailLoader.sampleSizeFor(600, 360, 300, 180));
+        assertEquals(4, ThumbnailLoader.sampleSizeFor(2000, 1200, 300, 180));
+    }
+
+    @Test
+    public void sampleSizeFor_isLimitedByTheShorterSide() {
+        //a wide image is cropped at the sides, so its height decides
+        assertEquals(1, ThumbnailLoader.sampleSizeFor(2000, 300, 300, 180));
+    }
+}
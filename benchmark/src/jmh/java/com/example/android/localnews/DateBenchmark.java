@@ -0,0 +1,61 @@
+package com.example.android.localnews;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the per article date work: reading the publication timestamp of a response
+ * and formatting it for the list.
+ */
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class DateBenchmark {
+
+    /** A spread of timestamps as the Guardian writes them, so branch prediction can't settle. */
+    private static final String[] TIMESTAMPS = {
+            "2018-08-20T14:12:05Z",
+            "2018-08-19T23:59:59Z",
+            "2017-12-31T00:00:00Z",
+            "2016-02-29T12:30:45Z",
+            "2018-01-01T06:05:04Z",
+            "2015-07-14T18:00:00Z",
+            "2018-08-01T09:41:27Z",
+            "2014-11-05T21:15:33Z",
+    };
+
+    private long[] mMillis;
+    private int mNext;
+
+    @Setup
+    public void setUp() {
+        mMillis = new long[TIMESTAMPS.length];
+        for (int i = 0; i < TIMESTAMPS.length; i++) {
+            mMillis[i] = Iso8601.parse(TIMESTAMPS[i]);
+        }
+    }
+
+    private int next() {
+        mNext = (mNext + 1) & (TIMESTAMPS.length - 1);
+        return mNext;
+    }
+
+    @Benchmark
+    public long parseTimestamp() {
+        return Iso8601.parse(TIMESTAMPS[next()]);
+    }
+
+    @Benchmark
+    public String formatTimestamp() {
+        return Iso8601.format(mMillis[next()]);
+    }
+
+    @Benchmark
+    public String formatDisplayDate() {
+        return DisplayDates.format(mMillis[next()]);
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.android.localnews;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+
+/**
+ * A local stand-in for the Guardian search endpoint, answering every search with the same
+ * response under the conditions of a mobile network: a delay before the response headers,
+ * a bandwidth cap or a slow drip of the body, and a share of throttled or failed responses.
+ */
+public final class FakeGuardianServer implements Closeable {
+
+    /** The bandwidth cap is applied in slices of this length. */
+    private static final long BANDWIDTH_PERIOD_MILLIS = 100;
+
+    /** How long a throttled response asks the client to wait, in seconds. */
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    private final MockWebServer mServer = new MockWebServer();
+    private final byte[] mBody;
+    private final Random mRandom = new Random(1);
+
+    private long mLatencyMillis;
+    private long mBytesPerSecond;
+    private long mDripBytes;
+    private long mDripPeriodMillis;
+    private double mThrottledShare;
+    private double mFailedShare;
+
+    /**
+     * Creates a server answering with the given response body, start() it once it is set up.
+     */
+    public FakeGuardianServer(byte[] body) {
+        mBody = body;
+        mServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return respond();
+            }
+        });
+    }
+
+    /** Delays the headers of every response, the round trip of a slow network. */
+    public FakeGuardianServer setLatency(long millis) {
+        mLatencyMillis = millis;
+        return this;
+    }
+
+    /** Sends bodies no faster than the given number of bytes per second, 0 for no cap. */
+    public FakeGuardianServer setBandwidth(long bytesPerSecond) {
+        mBytesPerSecond = bytesPerSecond;
+        return this;
+    }
+
+    /** Sends bodies a few bytes at a time with a pause after each, 0 bytes for no drip. */
+    public FakeGuardianServer setDrip(long bytes, long periodMillis) {
+        mDripBytes = bytes;
+        mDripPeriodMillis = periodMillis;
+        return this;
+    }
+
+    /** Answers the given shares of requests with 429 Too Many Requests and 503 Service Unavailable. */
+    public FakeGuardianServer setErrors(double throttledShare, double failedShare) {
+        mThrottledShare = throttledShare;
+        mFailedShare = failedShare;
+        return this;
+    }
+
+    public void start() throws IOException {
+        mServer.start();
+    }
+
+    /** Returns the search URL for a page of a term, built the way the app builds its requests. */
+    public String searchUrl(String term, int page) {
+        HttpUrl url = mServer.url("/search").newBuilder()
+                .addQueryParameter("q", term)
+                .addQueryParameter("api-key", "test")
+                .addQueryParameter("show-tags", "contributor")
+                .addQueryParameter("show-fields", "thumbnail")
+                .addQueryParameter("page", String.valueOf(page))
+                .addQueryParameter("order-by", "newest")
+                .build();
+        return url.toString();
+    }
+
+    @Override
+    public void close() throws IOException {
+        mServer.shutdown();
+    }
+
+    private MockResponse respond() {
+        double roll;
+        synchronized (mRandom) {
+            roll = mRandom.nextDouble();
+        }
+
+        MockResponse response;
+        if (roll < mThrottledShare) {
+            response = new MockResponse().setResponseCode(429)
+                    .setHeader("Retry-After", RETRY_AFTER_SECONDS)
+                    .setBody("{\"message\":\"API rate limit exceeded\"}");
+        } else if (roll < mThrottledShare + mFailedShare) {
+            response = new MockResponse().setResponseCode(503).setBody("Service Unavailable");
+        } else {
+            response = new MockResponse()
+                    .setHeader("Content-Type", "application/json")
+                    .setBody(new Buffer().write(mBody));
+        }
+
+        response.setHeadersDelay(mLatencyMillis, TimeUnit.MILLISECONDS);
+        if (mDripBytes > 0) {
+            response.throttleBody(mDripBytes, mDripPeriodMillis, TimeUnit.MILLISECONDS);
+        } else if (mBytesPerSecond > 0) {
+            response.throttleBody(Math.max(1, mBytesPerSecond * BANDWIDTH_PERIOD_MILLIS / 1000),
+                    BANDWIDTH_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        return response;
+    }
+}
@@ -0,0 +1,311 @@
+package com.example.android.localnews;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import okhttp3.mockwebserver.MockWebServer;
+
+/**
+ * Load test of the fetch and parse path, sending search requests through the app's transport to
+ * a local fake Guardian server and parsing the responses as they stream in, under the network
+ * conditions our users actually have. Every request goes through a {@link RequestBudget} the way
+ * the app's do, so throttled and failed responses drive its backoff, Retry-After handling and
+ * circuit breaker. Reports end-to-end latency percentiles, time to first byte, throughput, the
+ * requests the budget held back or denied and peak heap for each scenario.
+ *
+ * <p>Run it with {@code ./gradlew :benchmark:loadTest}, or pick scenarios with
+ * {@code -Pscenarios=3g,huge}.
+ */
+public final class FetchLoadTest {
+
+    /** Requests sent before the scenarios so they measure compiled code. */
+    private static final int WARMUP_REQUESTS = 200;
+
+    /** How often the heap is sampled while a scenario runs. */
+    private static final long HEAP_SAMPLE_MILLIS = 5;
+
+    /** Every request of a scenario gives up after this long without a byte, like the app's. */
+    private static final int READ_TIMEOUT_MILLIS = HttpTransport.Request.DEFAULT_READ_TIMEOUT_MILLIS;
+
+    /**
+     * The budget's own limits are set well above what the scenarios send, so only the server's
+     * answers slow requests down and the scenarios measure the fetch path rather than the limits.
+     */
+    private static final int BUDGET_PER_SECOND = 10000;
+    private static final int BUDGET_PER_DAY = 10000000;
+
+    /** The longest a request waits for the budget before it is given up, like the app's. */
+    private static final long MAX_BUDGET_WAIT_MILLIS = 5000;
+
+    /** Kept so the logger isn't collected along with the level set on it. */
+    private static final Logger SERVER_LOGGER = Logger.getLogger(MockWebServer.class.getName());
+
+    /** The network conditions we test under, from a fast network to the worst mobile ones. */
+    private static final List<Scenario> SCENARIOS = Arrays.asList(
+            new Scenario("local", 50, 500, 4),
+            new Scenario("wifi", 50, 200, 4).latency(30).bandwidth(2 * 1024 * 1024),
+            new Scenario("4g", 50, 100, 4).latency(80).bandwidth(500 * 1024),
+            new Scenario("3g", 50, 40, 4).latency(300).bandwidth(100 * 1024),
+            new Scenario("2g", 50, 12, 4).latency(800).bandwidth(20 * 1024),
+            new Scenario("drip", 10, 12, 4).latency(200).drip(512, 100),
+            new Scenario("flaky", 50, 100, 4).latency(100).errors(0.1, 0.1),
+            new Scenario("huge", 5000, 20, 2),
+            new Scenario("huge-3g", 2000, 4, 2).latency(300).bandwidth(100 * 1024));
+
+    private FetchLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> selected = args.length == 0 ? null : Arrays.asList(args[0].split(","));
+
+        //the server logs every request it answers, which would bury the report
+        SERVER_LOGGER.setLevel(Level.WARNING);
+
+        run(new Scenario("warmup", 50, WARMUP_REQUESTS, 4));
+
+        System.out.println(String.format(Locale.US,
+                "%-8s %8s %6s %5s %5s %5s %6s %6s %9s %9s %9s %9s %9s %8s %10s %9s",
+                "scenario", "articles", "ok", "429", "5xx", "io", "held", "denied", "p50 ms", "p95 ms", "p99 ms",
+                "max ms", "ttfb p50", "req/s", "articles/s", "heap MB"));
+        for (Scenario scenario : SCENARIOS) {
+            if (selected == null || selected.contains(scenario.mName)) {
+                System.out.println(run(scenario));
+            }
+        }
+    }
+
+    /** Runs the requests of a scenario against a fresh server and transport. */
+    private static Report run(final Scenario scenario) throws Exception {
+        FakeGuardianServer server = new FakeGuardianServer(GuardianFixtures.response(scenario.mArticles))
+                .setLatency(scenario.mLatencyMillis)
+                .setBandwidth(scenario.mBytesPerSecond)
+                .setDrip(scenario.mDripBytes, scenario.mDripPeriodMillis)
+                .setErrors(scenario.mThrottledShare, scenario.mFailedShare);
+        server.start();
+
+        final Report report = new Report(scenario);
+        final HttpTransport transport = new OkHttpTransport();
+        final RequestBudget budget = new RequestBudget(BUDGET_PER_SECOND, BUDGET_PER_DAY);
+        final String url = server.searchUrl("Nevada", 1);
+        final AtomicInteger remaining = new AtomicInteger(scenario.mRequests);
+        HeapSampler heap = new HeapSampler();
+
+        System.gc();
+        heap.start();
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(scenario.mConcurrency);
+        try {
+            for (int i = 0; i < scenario.mConcurrency; i++) {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        while (remaining.getAndDecrement() > 0) {
+                            if (acquire(budget, report)) {
+                                fetch(transport, budget, url, report);
+                            }
+                        }
+                    }
+                });
+            }
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.HOURS);
+        } finally {
+            report.mElapsedNanos = System.nanoTime() - start;
+            report.mPeakHeapBytes = heap.stop();
+            server.close();
+        }
+        return report;
+    }
+
+    /**
+     * Takes a token from the budget for a request, waiting for one as the app's foreground
+     * requests do. Returns false if the request is given up.
+     */
+    private static boolean acquire(RequestBudget budget, Report report) {
+        long waited = 0;
+        while (true) {
+            long wait = budget.tryAcquire(RequestBudget.Priority.FOREGROUND);
+            if (wait == 0) {
+                if (waited > 0) {
+                    report.mHeld.incrementAndGet();
+                }
+                return true;
+            }
+            if (wait == RequestBudget.DENIED || waited + wait > MAX_BUDGET_WAIT_MILLIS) {
+                report.mDenied.incrementAndGet();
+                return false;
+            }
+            long step = Math.min(wait, 100);
+            try {
+                Thread.sleep(step);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            waited += step;
+        }
+    }
+
+    /** Sends one request and parses its response, the way the app's fetch does. */
+    private static void fetch(HttpTransport transport, RequestBudget budget, String url, Report report) {
+        HttpTransport.Request request = new HttpTransport.Request(url);
+        request.setTimeouts(HttpTransport.Request.DEFAULT_CONNECT_TIMEOUT_MILLIS, READ_TIMEOUT_MILLIS);
+        FetchTimings timings = new FetchTimings();
+        request.setTimings(timings);
+
+        long start = System.nanoTime();
+        HttpTransport.Response response = null;
+        try {
+            response = transport.newCall(request).execute();
+            int code = response.getCode();
+            budget.onResponse(code, response.getHeader("Retry-After"));
+            if (code == 200) {
+                List<NewsArticle> articles = NewsArticleParser.parse(timings.instrument(response.getBody()));
+                timings.bodyEnd(articles.size());
+                report.recordSuccess((System.nanoTime() - start) / 1000, timings);
+            } else if (code == 429) {
+                report.mThrottled.incrementAndGet();
+            } else {
+                report.mFailed.incrementAndGet();
+            }
+        } catch (IOException e) {
+            report.mIoErrors.incrementAndGet();
+        } finally {
+            if (response == null) {
+                budget.onNoResponse();
+            } else {
+                response.close();
+            }
+        }
+    }
+
+    /** The conditions and the amount of work of one run. */
+    private static final class Scenario {
+        private final String mName;
+        private final int mArticles;
+        private final int mRequests;
+        private final int mConcurrency;
+        private long mLatencyMillis;
+        private long mBytesPerSecond;
+        private long mDripBytes;
+        private long mDripPeriodMillis;
+        private double mThrottledShare;
+        private double mFailedShare;
+
+        Scenario(String name, int articles, int requests, int concurrency) {
+            mName = name;
+            mArticles = articles;
+            mRequests = requests;
+            mConcurrency = concurrency;
+        }
+
+        Scenario latency(long millis) {
+            mLatencyMillis = millis;
+            return this;
+        }
+
+        Scenario bandwidth(long bytesPerSecond) {
+            mBytesPerSecond = bytesPerSecond;
+            return this;
+        }
+
+        Scenario drip(long bytes, long periodMillis) {
+            mDripBytes = bytes;
+            mDripPeriodMillis = periodMillis;
+            return this;
+        }
+
+        Scenario errors(double throttledShare, double failedShare) {
+            mThrottledShare = throttledShare;
+            mFailedShare = failedShare;
+            return this;
+        }
+    }
+
+    /** What one run of a scenario measured. */
+    private static final class Report {
+        private final Scenario mScenario;
+        private final RollingHistogram mLatency = new RollingHistogram(TimeUnit.HOURS.toMillis(1), 2);
+        private final RollingHistogram mTimeToFirstByte = new RollingHistogram(TimeUnit.HOURS.toMillis(1), 2);
+        private final AtomicInteger mSucceeded = new AtomicInteger();
+        private final AtomicLong mArticles = new AtomicLong();
+        private final AtomicInteger mThrottled = new AtomicInteger();
+        private final AtomicInteger mFailed = new AtomicInteger();
+        private final AtomicInteger mIoErrors = new AtomicInteger();
+        private final AtomicInteger mHeld = new AtomicInteger();
+        private final AtomicInteger mDenied = new AtomicInteger();
+        private long mElapsedNanos;
+        private long mPeakHeapBytes;
+
+        Report(Scenario scenario) {
+            mScenario = scenario;
+        }
+
+        void recordSuccess(long latencyMicros, FetchTimings timings) {
+            mLatency.record(latencyMicros);
+            mTimeToFirstByte.record(timings.getTimeToFirstByteMicros());
+            mSucceeded.incrementAndGet();
+            mArticles.addAndGet(timings.getArticles());
+        }
+
+        @Override
+        public String toString() {
+            RollingHistogram.Snapshot latency = mLatency.snapshot();
+            RollingHistogram.Snapshot timeToFirstByte = mTimeToFirstByte.snapshot();
+            double seconds = mElapsedNanos / 1e9;
+            return String.format(Locale.US,
+                    "%-8s %8d %6d %5d %5d %5d %6d %6d %9.1f %9.1f %9.1f %9.1f %9.1f %8.1f %10.0f %9.1f",
+                    mScenario.mName, mScenario.mArticles, mSucceeded.get(), mThrottled.get(), mFailed.get(),
+                    mIoErrors.get(), mHeld.get(), mDenied.get(), millis(latency.getPercentile(0.5)), millis(latency.getPercentile(0.95)),
+                    millis(latency.getPercentile(0.99)), millis(latency.getMax()),
+                    millis(timeToFirstByte.getPercentile(0.5)), mSucceeded.get() / seconds,
+                    mArticles.get() / seconds, mPeakHeapBytes / (1024.0 * 1024.0));
+        }
+
+        private static double millis(long micros) {
+            return micros / 1000.0;
+        }
+    }
+
+    /** Samples the used heap on its own thread and keeps the highest value seen. */
+    private static final class HeapSampler implements Runnable {
+        private final MemoryMXBean mMemory = ManagementFactory.getMemoryMXBean();
+        private final Thread mThread = new Thread(this, "HeapSampler");
+        private volatile boolean mStopped;
+        private volatile long mPeakBytes;
+
+        void start() {
+            mThread.setDaemon(true);
+            mThread.start();
+        }
+
+        long stop() throws InterruptedException {
+            mStopped = true;
+            mThread.join();
+            return mPeakBytes;
+        }
+
+        @Override
+        public void run() {
+            while (!mStopped) {
+                mPeakBytes = Math.max(mPeakBytes, mMemory.getHeapMemoryUsage().getUsed());
+                try {
+                    Thread.sleep(HEAP_SAMPLE_MILLIS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.android.localnews;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+
+/**
+ * Builds Guardian search responses of any size from a recorded response, so benchmarks can
+ * measure realistic payloads of 10 to 1000 articles without checking in megabytes of JSON.
+ */
+public final class GuardianFixtures {
+
+    /** The recorded response the fixtures are built from. */
+    private static final String RECORDED_RESPONSE = "guardian_search_nevada.json";
+
+    /** The response sizes the benchmarks run with. */
+    public static final int[] SIZES = {10, 50, 200, 1000};
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private GuardianFixtures() {
+    }
+
+    /**
+     * Returns a response holding the given number of articles, cycling through the recorded
+     * articles and giving each copy its own id and url so none of them are duplicates.
+     */
+    public static byte[] response(int articles) throws IOException {
+        JsonObject recorded = readRecorded();
+        JsonObject response = recorded.getAsJsonObject("response");
+        JsonArray recordedResults = response.getAsJsonArray("results");
+
+        JsonArray results = new JsonArray();
+        for (int i = 0; i < articles; i++) {
+            JsonObject article = recordedResults.get(i % recordedResults.size()).deepCopy().getAsJsonObject();
+            String suffix = "-" + i;
+            article.addProperty("id", article.get("id").getAsString() + suffix);
+            article.addProperty("webUrl", article.get("webUrl").getAsString() + suffix);
+            article.addProperty("apiUrl", article.get("apiUrl").getAsString() + suffix);
+            results.add(article);
+        }
+
+        response.add("results", results);
+        response.addProperty("pageSize", articles);
+        return new Gson().toJson(recorded).getBytes(UTF_8);
+    }
+
+    private static JsonObject readRecorded() throws IOException {
+        InputStream in = GuardianFixtures.class.getClassLoader().getResourceAsStream(RECORDED_RESPONSE);
+        if (in == null) {
+            throw new IOException("missing fixture " + RECORDED_RESPONSE);
+        }
+        try {
+            JsonElement recorded = new JsonParser().parse(new InputStreamReader(in, UTF_8));
+            return recorded.getAsJsonObject();
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.android.localnews;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures turning a Guardian search response into news articles, from the raw bytes
+ * the transport hands over to the finished list, for responses of 10 to 1000 articles.
+ */
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class ParseBenchmark {
+
+    @Param({"10", "50", "200", "1000"})
+    public int articles;
+
+    private byte[] mResponse;
+
+    @Setup
+    public void setUp() throws IOException {
+        mResponse = GuardianFixtures.response(articles);
+    }
+
+    @Benchmark
+    public List<NewsArticle> parse() throws IOException {
+        return NewsArticleParser.parse(new ByteArrayInputStream(mResponse));
+    }
+}
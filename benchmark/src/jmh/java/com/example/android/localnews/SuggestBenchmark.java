@@ -0,0 +1,68 @@
+package com.example.android.localnews;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures answering one keystroke of the search term with type-ahead suggestions, from an index
+ * filled up to the app's memory budget with the sections and title phrases of fetched articles,
+ * both from an index that hasn't changed and right after a new phrase was added to it, as happens
+ * while pages of articles stream in.
+ */
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class SuggestBenchmark {
+
+    /** The memory budget of the app's index. */
+    private static final long MAX_BYTES = 256 * 1024;
+
+    /** The suggestions shown under the search term. */
+    private static final int MAX_SUGGESTIONS = 5;
+
+    @Param({"", "n", "ne", "nev"})
+    public String prefix;
+
+    private SuggestionIndex mIndex;
+
+    /** Numbers the phrases added by {@link #addThenSuggest()} so each one is new. */
+    private int mAdded;
+
+    @Setup
+    public void setUp() throws IOException {
+        mIndex = new SuggestionIndex(MAX_BYTES);
+        List<NewsArticle> articles = NewsArticleParser.parse(
+                new ByteArrayInputStream(GuardianFixtures.response(1000)));
+        Random random = new Random(1);
+        long now = System.currentTimeMillis();
+        for (NewsArticle article : articles) {
+            mIndex.add(article.getSection(), 1, now);
+            //every word of every title stands in for the phrases the app takes from them,
+            //with a made up suffix so the index holds as many distinct phrases as its budget allows
+            for (String word : article.getTitle().split("\\W+")) {
+                mIndex.add(word + " " + random.nextInt(100), 1, now - random.nextInt(1000000000));
+            }
+        }
+    }
+
+    @Benchmark
+    public List<String> suggest() {
+        return mIndex.suggest(prefix, MAX_SUGGESTIONS);
+    }
+
+    @Benchmark
+    public List<String> addThenSuggest() {
+        //new phrases spread over the index, the lowest ranked ones are trimmed to stay in budget
+        mIndex.add("Nevada " + (mAdded++ * 7919 % 100000), 1, System.currentTimeMillis());
+        return mIndex.suggest(prefix, MAX_SUGGESTIONS);
+    }
+}
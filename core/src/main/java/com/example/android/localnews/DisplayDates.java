@@ -0,0 +1,24 @@
+package com.example.android.localnews;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+//formats publication times the way they are shown in the article list
+public final class DisplayDates {
+
+    //SimpleDateFormat isn't thread safe, so each loading thread keeps its own display formatter
+    private static final ThreadLocal<SimpleDateFormat> sDisplayDateFormat = new ThreadLocal<SimpleDateFormat>() {
+        @Override
+        protected SimpleDateFormat initialValue() {
+            return new SimpleDateFormat("LLL dd, yyyy");
+        }
+    };
+
+    private DisplayDates() {
+    }
+
+    //Return a formatted date string from epoch milliseconds.
+    public static String format(long epochMillis) {
+        return sDisplayDateFormat.get().format(new Date(epochMillis));
+    }
+}
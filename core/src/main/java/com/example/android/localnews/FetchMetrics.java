@@ -0,0 +1,82 @@
+package com.example.android.localnews;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+//rolling histograms of where the time of a feed refresh goes, from waiting for a fetch thread to
+//binding the rows, along with the size of each response, covering the last hour
+public final class FetchMetrics {
+
+    //the histograms roll over in six windows of ten minutes
+    private static final long WINDOW_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    private static final int WINDOWS = 6;
+
+    //the stages of a refresh and the other values recorded with it
+    public enum Stage {
+        QUEUE("us"),
+        CONNECT("us"),
+        TIME_TO_FIRST_BYTE("us"),
+        DOWNLOAD("us"),
+        PARSE("us"),
+        BIND("us"),
+        TOTAL("us"),
+        PAYLOAD("bytes"),
+        ARTICLES("count");
+
+        private final String mUnit;
+        private final RollingHistogram mHistogram = new RollingHistogram(WINDOW_MILLIS, WINDOWS);
+
+        Stage(String unit) {
+            mUnit = unit;
+        }
+
+        public String getUnit() {
+            return mUnit;
+        }
+
+        public RollingHistogram getHistogram() {
+            return mHistogram;
+        }
+    }
+
+    private FetchMetrics() {
+    }
+
+    //record a value of a stage, negative values mean the stage didn't happen and are skipped
+    public static void record(Stage stage, long value) {
+        if (value >= 0) {
+            stage.mHistogram.record(value);
+        }
+    }
+
+    //record the stages of a finished request
+    public static void record(FetchTimings timings) {
+        record(Stage.CONNECT, timings.getConnectMicros());
+        record(Stage.TIME_TO_FIRST_BYTE, timings.getTimeToFirstByteMicros());
+        if (timings.getDownloadMicros() >= 0) {
+            record(Stage.DOWNLOAD, timings.getDownloadMicros());
+            record(Stage.PARSE, timings.getParseMicros());
+            record(Stage.PAYLOAD, timings.getPayloadBytes());
+            record(Stage.ARTICLES, timings.getArticles());
+        }
+    }
+
+    //write the histograms as tab separated lines, one per stage, under a header line
+    public static void export(Appendable out) throws IOException {
+        out.append("stage\tunit\tcount\tp50\tp90\tp99\tmax\n");
+        for (Stage stage : Stage.values()) {
+            exportRow(out, stage.name(), stage.mUnit, stage.mHistogram);
+        }
+    }
+
+    //write a histogram as a tab separated line in the columns of the export
+    static void exportRow(Appendable out, String name, String unit, RollingHistogram histogram)
+            throws IOException {
+        RollingHistogram.Snapshot snapshot = histogram.snapshot();
+        out.append(String.format(Locale.US, "%s\t%s\t%d\t%d\t%d\t%d\t%d\n",
+                name.toLowerCase(Locale.US), unit, snapshot.getCount(),
+                snapshot.getPercentile(0.5), snapshot.getPercentile(0.9), snapshot.getPercentile(0.99),
+                snapshot.getMax()));
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.android.localnews;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+//the timings of a single request as it goes through the transport and the parser, filled in
+//by the thread running the request and by the transport's event callbacks
+public class FetchTimings {
+
+    //moments of the request in System.nanoTime(), 0 until they have happened
+    private volatile long mCallStartNanos;
+    private volatile long mConnectStartNanos;
+    private volatile long mConnectEndNanos;
+    private volatile long mResponseHeadersNanos;
+    private long mBodyEndNanos;
+
+    //time spent waiting inside reads of the response body
+    private long mReadNanos;
+
+    //the body bytes as sent over the wire, -1 if the transport doesn't report them,
+    //and as read after decoding
+    private volatile long mWireBytes = -1;
+    private long mBodyBytes;
+
+    //the number of articles parsed from the body
+    private int mArticles;
+
+    //the request is about to be sent
+    public void callStart() {
+        mCallStartNanos = System.nanoTime();
+    }
+
+    //a new connection is being opened, not called when a pooled connection is reused
+    public void connectStart() {
+        mConnectStartNanos = System.nanoTime();
+    }
+
+    public void connectEnd() {
+        mConnectEndNanos = System.nanoTime();
+    }
+
+    //the response headers have arrived
+    public void responseHeaders() {
+        mResponseHeadersNanos = System.nanoTime();
+    }
+
+    //the transport has read the whole body off the wire
+    public void wireBytes(long bytes) {
+        mWireBytes = bytes;
+    }
+
+    //wrap the response body so the time spent waiting for it and its size are counted
+    public InputStream instrument(InputStream body) {
+        return new TimedInputStream(body);
+    }
+
+    //the body has been read and parsed into a number of articles
+    public void bodyEnd(int articles) {
+        mBodyEndNanos = System.nanoTime();
+        mArticles = articles;
+    }
+
+    //get how long opening a new connection took, -1 if a pooled connection was used
+    public long getConnectMicros() {
+        if (mConnectStartNanos == 0 || mConnectEndNanos == 0) {
+            return -1;
+        }
+        return micros(mConnectEndNanos - mConnectStartNanos);
+    }
+
+    //get the time from sending the request to its response headers, -1 if they never arrived
+    public long getTimeToFirstByteMicros() {
+        if (mCallStartNanos == 0 || mResponseHeadersNanos == 0) {
+            return -1;
+        }
+        return micros(mResponseHeadersNanos - mCallStartNanos);
+    }
+
+    //get the time spent waiting for body bytes, -1 if the body wasn't read
+    public long getDownloadMicros() {
+        return mBodyEndNanos == 0 ? -1 : micros(mReadNanos);
+    }
+
+    //get the time spent parsing the body, that is reading it minus waiting for it,
+    //-1 if the body wasn't read
+    public long getParseMicros() {
+        if (mBodyEndNanos == 0 || mResponseHeadersNanos == 0) {
+            return -1;
+        }
+        return micros(mBodyEndNanos - mResponseHeadersNanos - mReadNanos);
+    }
+
+    //get the size of the body on the wire if the transport reported it, otherwise as it was read
+    public long getPayloadBytes() {
+        return mWireBytes >= 0 ? mWireBytes : mBodyBytes;
+    }
+
+    public int getArticles() {
+        return mArticles;
+    }
+
+    private static long micros(long nanos) {
+        return nanos / 1000;
+    }
+
+    //stream counting the bytes and the time spent in reads of the body it wraps
+    private class TimedInputStream extends FilterInputStream {
+
+        TimedInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            long start = System.nanoTime();
+            int read = super.read();
+            mReadNanos += System.nanoTime() - start;
+            if (read != -1) {
+                mBodyBytes++;
+            }
+            return read;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int count) throws IOException {
+            long start = System.nanoTime();
+            int read = super.read(buffer, offset, count);
+            mReadNanos += System.nanoTime() - start;
+            if (read > 0) {
+                mBodyBytes += read;
+            }
+            return read;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.android.localnews;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+//the network layer our GET requests are sent through, so the HTTP client can be swapped out
+public interface HttpTransport {
+
+    //prepare a request, the returned call is executed once and can be cancelled from any thread
+    Call newCall(Request request);
+
+    //a single request that is being or is about to be executed
+    interface Call {
+
+        //send the request and wait for the response headers
+        Response execute() throws IOException;
+
+        //abandon the request, making a blocked execute() or body read fail with an IOException
+        void cancel();
+    }
+
+    //the response to a call, its body has to be closed so the connection can be reused
+    interface Response extends Closeable {
+
+        //get the HTTP status code
+        int getCode();
+
+        //get the value of a response header, or null if it wasn't sent
+        String getHeader(String name);
+
+        //get the decoded response body
+        InputStream getBody();
+
+        @Override
+        void close();
+    }
+
+    //a GET request with its headers and timeouts
+    class Request {
+
+        //the timeouts used unless a call asks for different ones
+        public static final int DEFAULT_CONNECT_TIMEOUT_MILLIS = 15000;
+        public static final int DEFAULT_READ_TIMEOUT_MILLIS = 10000;
+
+        private final String mUrl;
+        private final Map<String, String> mHeaders = new LinkedHashMap<>();
+        private int mConnectTimeoutMillis = DEFAULT_CONNECT_TIMEOUT_MILLIS;
+        private int mReadTimeoutMillis = DEFAULT_READ_TIMEOUT_MILLIS;
+        private FetchTimings mTimings;
+
+        //construct a new request for a given url
+        public Request(String url) {
+            mUrl = url;
+        }
+
+        public String getUrl() {
+            return mUrl;
+        }
+
+        //add or replace a request header
+        public void setHeader(String name, String value) {
+            mHeaders.put(name, value);
+        }
+
+        public Map<String, String> getHeaders() {
+            return mHeaders;
+        }
+
+        //set how long this request may take to connect and to wait between reads
+        public void setTimeouts(int connectTimeoutMillis, int readTimeoutMillis) {
+            mConnectTimeoutMillis = connectTimeoutMillis;
+            mReadTimeoutMillis = readTimeoutMillis;
+        }
+
+        public int getConnectTimeoutMillis() {
+            return mConnectTimeoutMillis;
+        }
+
+        public int getReadTimeoutMillis() {
+            return mReadTimeoutMillis;
+        }
+
+        //have the transport note when this request connects and receives its response
+        public void setTimings(FetchTimings timings) {
+            mTimings = timings;
+        }
+
+        //get the timings the transport fills in, or null if nobody asked for them
+        public FetchTimings getTimings() {
+            return mTimings;
+        }
+    }
+}
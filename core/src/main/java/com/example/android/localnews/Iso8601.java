@@ -0,0 +1,177 @@
+package com.example.android.localnews;
+
+//hand written codec between ISO-8601 timestamps such as "2018-08-20T14:12:05Z" and epoch
+//milliseconds, avoiding SimpleDateFormat, its regex pre-processing and the Date objects it creates
+public final class Iso8601 {
+
+    //returned when a timestamp can't be parsed
+    public static final long INVALID = Long.MIN_VALUE;
+
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+    private Iso8601() {
+    }
+
+    //parse a timestamp with a date, a time down to the second, optional fractional seconds and
+    //a zone of "Z" or a +hh:mm / +hhmm offset, returning epoch milliseconds or INVALID
+    public static long parse(String timestamp) {
+        if (timestamp == null || timestamp.length() < 20) {
+            return INVALID;
+        }
+        if (timestamp.charAt(4) != '-' || timestamp.charAt(7) != '-' || timestamp.charAt(10) != 'T'
+                || timestamp.charAt(13) != ':' || timestamp.charAt(16) != ':') {
+            return INVALID;
+        }
+
+        int year = digits(timestamp, 0, 4);
+        int month = digits(timestamp, 5, 2);
+        int day = digits(timestamp, 8, 2);
+        int hour = digits(timestamp, 11, 2);
+        int minute = digits(timestamp, 14, 2);
+        int second = digits(timestamp, 17, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return INVALID;
+        }
+
+        int length = timestamp.length();
+        int position = 19;
+
+        //fractional seconds, only the first three digits matter for milliseconds
+        int millis = 0;
+        if (timestamp.charAt(position) == '.') {
+            position++;
+            int fractionDigits = 0;
+            while (position < length && isDigit(timestamp.charAt(position))) {
+                if (fractionDigits < 3) {
+                    millis = millis * 10 + (timestamp.charAt(position) - '0');
+                    fractionDigits++;
+                }
+                position++;
+            }
+            if (fractionDigits == 0) {
+                return INVALID;
+            }
+            for (; fractionDigits < 3; fractionDigits++) {
+                millis *= 10;
+            }
+        }
+
+        if (position >= length) {
+            return INVALID;
+        }
+
+        //the zone designator
+        int offsetMinutes;
+        char zone = timestamp.charAt(position);
+        if (zone == 'Z' && position + 1 == length) {
+            offsetMinutes = 0;
+        } else if (zone == '+' || zone == '-') {
+            int offsetHours = digits(timestamp, position + 1, 2);
+            position += 3;
+            if (position < length && timestamp.charAt(position) == ':') {
+                position++;
+            }
+            int offsetMins = digits(timestamp, position, 2);
+            if (offsetHours < 0 || offsetMins < 0 || position + 2 != length) {
+                return INVALID;
+            }
+            offsetMinutes = (zone == '-' ? -1 : 1) * (offsetHours * 60 + offsetMins);
+        } else {
+            return INVALID;
+        }
+
+        long seconds = ((daysFromCivil(year, month, day) * 24 + hour) * 60 + minute - offsetMinutes) * 60 + second;
+        return seconds * 1000 + millis;
+    }
+
+    //format epoch milliseconds as a UTC timestamp such as "2018-08-20T14:12:05Z"
+    public static String format(long epochMillis) {
+        //Math.floorDiv needs API 24, so round negative times down by hand
+        long days = epochMillis / MILLIS_PER_DAY;
+        if (epochMillis % MILLIS_PER_DAY < 0) {
+            days--;
+        }
+        int millisOfDay = (int) (epochMillis - days * MILLIS_PER_DAY);
+
+        //civil date from days since the epoch, see http://howardhinnant.github.io/date_algorithms.html
+        long z = days + 719468;
+        long era = (z >= 0 ? z : z - 146096) / 146097;
+        long dayOfEra = z - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long shiftedMonth = (5 * dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153 * shiftedMonth + 2) / 5 + 1);
+        int month = (int) (shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9);
+        int year = (int) (yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
+
+        int secondOfDay = millisOfDay / 1000;
+        char[] out = new char[20];
+        put(out, 0, year, 4);
+        out[4] = '-';
+        put(out, 5, month, 2);
+        out[7] = '-';
+        put(out, 8, day, 2);
+        out[10] = 'T';
+        put(out, 11, secondOfDay / 3600, 2);
+        out[13] = ':';
+        put(out, 14, secondOfDay / 60 % 60, 2);
+        out[16] = ':';
+        put(out, 17, secondOfDay % 60, 2);
+        out[19] = 'Z';
+        return new String(out);
+    }
+
+    //days since 1970-01-01 of a proleptic Gregorian date
+    private static long daysFromCivil(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = (y >= 0 ? y : y - 399) / 400;
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097L + dayOfEra - 719468;
+    }
+
+    private static int daysInMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+                return leap ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    //read a fixed number of decimal digits, returning -1 if any of them isn't a digit
+    private static int digits(String text, int start, int count) {
+        if (start + count > text.length()) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = text.charAt(i);
+            if (!isDigit(c)) {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    //write a zero padded number into a fixed width
+    private static void put(char[] out, int start, int value, int width) {
+        for (int i = start + width - 1; i >= start; i--) {
+            out[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+}
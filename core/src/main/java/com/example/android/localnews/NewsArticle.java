@@ -0,0 +1,95 @@
+package com.example.android.localnews;
+
+//contains a news article and basic details of the article
+public class NewsArticle {
+
+    //the publication time used when an article has no valid date
+    public static final long NO_DATE = Iso8601.INVALID;
+
+    //the title of an article
+    String mTitle;
+
+    //the author of an article, pooled as the same contributors write many articles
+    String mAuthor;
+
+    //the section name of an article, pooled as there are only a few dozen sections
+    String mSection;
+
+    //the URL of an article
+    String mUrl;
+
+    //the publication time of an article in epoch milliseconds, or NO_DATE
+    long mPublished;
+
+    //the URL of the article's thumbnail image, empty if it has none
+    String mThumbnailUrl;
+
+    //the publication date formatted for display, worked out when the article is loaded
+    //rather than every time its row is bound
+    String mDisplayDate;
+
+
+    //construct a new news article object without a thumbnail
+    public NewsArticle(String title, String author, String section, String url, long published) {
+        this(title, author, section, url, published, "");
+    }
+
+    //construct a new news article object
+    public NewsArticle(String title, String author, String section, String url, long published,
+                       String thumbnailUrl) {
+        this.mTitle = title;
+        this.mAuthor = StringPool.SHARED.intern(author);
+        this.mSection = StringPool.SHARED.intern(section);
+        this.mUrl = url;
+        this.mPublished = published;
+        this.mThumbnailUrl = thumbnailUrl == null ? "" : thumbnailUrl;
+        this.mDisplayDate = published == NO_DATE ? "" : StringPool.SHARED.intern(DisplayDates.format(published));
+    }
+
+    //get the title of the article
+    public String getTitle() {
+        return mTitle;
+    }
+
+    //get the author of the article
+    public String getAuthor() {
+        return mAuthor;
+    }
+
+    //get the section name of the article
+    public String getSection() {
+        return mSection;
+    }
+
+    //get the url of the article
+    public String getUrl() {
+        return mUrl;
+    }
+
+    //get the publication time of the article in epoch milliseconds, or NO_DATE
+    public long getPublished() {
+        return mPublished;
+    }
+
+    //get the URL of the thumbnail image, empty if the article has none
+    public String getThumbnailUrl() {
+        return mThumbnailUrl;
+    }
+
+    //get the publication date formatted for display
+    public String getDisplayDate() {
+        return mDisplayDate;
+    }
+
+    //check whether another article shows exactly the same details
+    public boolean hasSameContent(NewsArticle other) {
+        return mPublished == other.mPublished && equal(mUrl, other.mUrl) && equal(mTitle, other.mTitle)
+                && equal(mAuthor, other.mAuthor) && equal(mSection, other.mSection)
+                && equal(mThumbnailUrl, other.mThumbnailUrl);
+    }
+
+    private static boolean equal(Object a, Object b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+}
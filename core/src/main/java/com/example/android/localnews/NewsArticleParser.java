@@ -0,0 +1,225 @@
+package com.example.android.localnews;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+//streaming parser that turns Guardian search responses into news articles, and item responses into
+//body text, token by token without holding the response body as a String or a JSON tree
+public final class NewsArticleParser {
+
+    //value used when an article has no contributor tag
+    static final String NO_AUTHOR = "No Author Provided";
+
+    private NewsArticleParser() {
+    }
+
+    //parse a Guardian search response read straight from a stream into a news article list,
+    //a response of another shape, like an error body, fails like a broken one does
+    public static List<NewsArticle> parse(InputStream inputStream) throws IOException {
+        List<NewsArticle> newsArticles = new ArrayList<>();
+
+        JsonReader reader = new JsonReader(new InputStreamReader(inputStream, Charset.forName("UTF-8")));
+        try {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (reader.nextName().equals("response") && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                    readResponse(reader, newsArticles);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } catch (IllegalStateException | NumberFormatException e) {
+            //the reader throws these for well formed JSON with a token where we expect another
+            throw new IOException("Unexpected shape of search response", e);
+        } finally {
+            reader.close();
+        }
+
+        return newsArticles;
+    }
+
+    //parse a Guardian single item response into the body text of its article,
+    //empty if the response holds none
+    public static String parseBodyText(InputStream inputStream) throws IOException {
+        String bodyText = "";
+
+        JsonReader reader = new JsonReader(new InputStreamReader(inputStream, Charset.forName("UTF-8")));
+        try {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (reader.nextName().equals("response") && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        if (reader.nextName().equals("content") && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                            bodyText = readBodyText(reader);
+                        } else {
+                            reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } catch (IllegalStateException | NumberFormatException e) {
+            throw new IOException("Unexpected shape of item response", e);
+        } finally {
+            reader.close();
+        }
+
+        return bodyText;
+    }
+
+    //read the "content" object of an item response, only descending into its fields
+    private static String readBodyText(JsonReader reader) throws IOException {
+        String bodyText = "";
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals("fields") && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    if (reader.nextName().equals("bodyText")) {
+                        bodyText = nextString(reader);
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return bodyText;
+    }
+
+    //read the "response" object, only descending into the "results" array
+    private static void readResponse(JsonReader reader, List<NewsArticle> newsArticles) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals("results") && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    if (reader.peek() == JsonToken.BEGIN_OBJECT) {
+                        newsArticles.add(readArticle(reader));
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    //read a single result object into a news article, skipping the fields we don't display
+    private static NewsArticle readArticle(JsonReader reader) throws IOException {
+        String title = "";
+        String section = "";
+        String url = "";
+        long published = NewsArticle.NO_DATE;
+        String author = NO_AUTHOR;
+        String thumbnailUrl = "";
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            switch (name) {
+                case "webTitle":
+                    title = nextString(reader);
+                    break;
+                case "sectionName":
+                    section = nextString(reader);
+                    break;
+                case "webUrl":
+                    url = nextString(reader);
+                    break;
+                case "webPublicationDate":
+                    published = Iso8601.parse(nextString(reader));
+                    break;
+                case "tags":
+                    author = readAuthor(reader);
+                    break;
+                case "fields":
+                    thumbnailUrl = readThumbnail(reader);
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return new NewsArticle(title, author, section, url, published, thumbnailUrl);
+    }
+
+    //read the contributor tags array and return the name of the first contributor
+    private static String readAuthor(JsonReader reader) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+            reader.skipValue();
+            return NO_AUTHOR;
+        }
+
+        String author = null;
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if (author == null && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                author = "";
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    if (reader.nextName().equals("webTitle")) {
+                        author = nextString(reader);
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endArray();
+
+        return author == null ? NO_AUTHOR : author;
+    }
+
+    //read the requested fields object and return the thumbnail URL, empty if there is none
+    private static String readThumbnail(JsonReader reader) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            return "";
+        }
+
+        String thumbnailUrl = "";
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals("thumbnail")) {
+                thumbnailUrl = nextString(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return thumbnailUrl;
+    }
+
+    //read a string value, treating null as an empty string the way JSONObject.optString does
+    private static String nextString(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return "";
+        }
+        return reader.nextString();
+    }
+}
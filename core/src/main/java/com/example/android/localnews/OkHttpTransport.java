@@ -0,0 +1,177 @@
+package com.example.android.localnews;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.ConnectionPool;
+import okhttp3.EventListener;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+
+//default transport, backed by one OkHttp client so connections are kept alive and reused between
+//requests, HTTP/2 is negotiated where the server offers it and gzip bodies are decoded transparently
+public class OkHttpTransport implements HttpTransport {
+
+    //idle connections kept open for reuse, and for how long
+    private static final int MAX_IDLE_CONNECTIONS = 4;
+    private static final long KEEP_ALIVE_MINUTES = 5;
+
+    //passes OkHttp's call events on to the timings a request was tagged with
+    private static final EventListener.Factory TIMINGS_LISTENER_FACTORY = new EventListener.Factory() {
+        @Override
+        public EventListener create(okhttp3.Call call) {
+            Object tag = call.request().tag();
+            return tag instanceof FetchTimings ? new TimingsListener((FetchTimings) tag) : EventListener.NONE;
+        }
+    };
+
+    private final OkHttpClient mClient;
+
+    //construct a transport with its own connection pool
+    public OkHttpTransport() {
+        this(new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+                .connectTimeout(Request.DEFAULT_CONNECT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)
+                .readTimeout(Request.DEFAULT_READ_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)
+                .build());
+    }
+
+    //construct a transport on top of an existing client
+    public OkHttpTransport(OkHttpClient client) {
+        mClient = client.newBuilder().eventListenerFactory(TIMINGS_LISTENER_FACTORY).build();
+    }
+
+    @Override
+    public Call newCall(Request request) {
+        okhttp3.Request.Builder builder = new okhttp3.Request.Builder();
+        try {
+            builder.url(request.getUrl());
+        } catch (IllegalArgumentException e) {
+            return new FailedCall(new IOException("Invalid URL " + request.getUrl(), e));
+        }
+        for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+            builder.header(header.getKey(), header.getValue());
+        }
+        if (request.getTimings() != null) {
+            builder.tag(request.getTimings());
+        }
+
+        return new OkHttpCall(clientFor(request).newCall(builder.build()));
+    }
+
+    //get a client with the timeouts of a request, sharing the connection pool of our own client
+    private OkHttpClient clientFor(Request request) {
+        if (request.getConnectTimeoutMillis() == mClient.connectTimeoutMillis()
+                && request.getReadTimeoutMillis() == mClient.readTimeoutMillis()) {
+            return mClient;
+        }
+        return mClient.newBuilder()
+                .connectTimeout(request.getConnectTimeoutMillis(), TimeUnit.MILLISECONDS)
+                .readTimeout(request.getReadTimeoutMillis(), TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    //a call running on OkHttp
+    private static class OkHttpCall implements Call {
+        private final okhttp3.Call mCall;
+
+        OkHttpCall(okhttp3.Call call) {
+            mCall = call;
+        }
+
+        @Override
+        public Response execute() throws IOException {
+            return new OkHttpResponse(mCall.execute());
+        }
+
+        @Override
+        public void cancel() {
+            mCall.cancel();
+        }
+    }
+
+    //the response of an OkHttp call
+    private static class OkHttpResponse implements Response {
+        private final okhttp3.Response mResponse;
+
+        OkHttpResponse(okhttp3.Response response) {
+            mResponse = response;
+        }
+
+        @Override
+        public int getCode() {
+            return mResponse.code();
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return mResponse.header(name);
+        }
+
+        @Override
+        public InputStream getBody() {
+            return mResponse.body().byteStream();
+        }
+
+        @Override
+        public void close() {
+            mResponse.close();
+        }
+    }
+
+    //records the events of a call into its timings
+    private static class TimingsListener extends EventListener {
+        private final FetchTimings mTimings;
+
+        TimingsListener(FetchTimings timings) {
+            mTimings = timings;
+        }
+
+        @Override
+        public void callStart(okhttp3.Call call) {
+            mTimings.callStart();
+        }
+
+        @Override
+        public void connectStart(okhttp3.Call call, InetSocketAddress address, Proxy proxy) {
+            mTimings.connectStart();
+        }
+
+        @Override
+        public void connectEnd(okhttp3.Call call, InetSocketAddress address, Proxy proxy, Protocol protocol) {
+            mTimings.connectEnd();
+        }
+
+        @Override
+        public void responseHeadersEnd(okhttp3.Call call, okhttp3.Response response) {
+            mTimings.responseHeaders();
+        }
+
+        @Override
+        public void responseBodyEnd(okhttp3.Call call, long byteCount) {
+            mTimings.wireBytes(byteCount);
+        }
+    }
+
+    //a call for a request that could not be built
+    private static class FailedCall implements Call {
+        private final IOException mError;
+
+        FailedCall(IOException error) {
+            mError = error;
+        }
+
+        @Override
+        public Response execute() throws IOException {
+            throw mError;
+        }
+
+        @Override
+        public void cancel() {
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.example.android.localnews;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+//client side budget for the requests sent with one API key, so we stay inside its per second
+//and per day limits instead of finding out from a 429, slow down when the server asks us to
+//and stop sending altogether while it keeps throttling us
+public class RequestBudget {
+
+    //who a request is for, background work only spends tokens foreground work can spare
+    public enum Priority {
+        FOREGROUND,
+        BACKGROUND
+    }
+
+    //returned by tryAcquire when the request should not be sent at all
+    public static final long DENIED = -1;
+
+    //the part of each bucket background requests leave for foreground ones
+    private static final double BACKGROUND_RESERVE = 0.5;
+
+    //backoff after a throttled or failed request when the server didn't say how long to wait,
+    //doubling with each failure in a row
+    static final long BASE_BACKOFF_MILLIS = TimeUnit.SECONDS.toMillis(1);
+    static final long MAX_BACKOFF_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    //throttled responses in a row that open the circuit, and how long it stays open at first
+    static final int TRIP_THRESHOLD = 5;
+    static final long BASE_OPEN_MILLIS = TimeUnit.MINUTES.toMillis(2);
+    static final long MAX_OPEN_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private final Bucket mSecondBucket;
+    private final Bucket mDayBucket;
+    private final Random mRandom;
+
+    //no request may be sent before this time, set from Retry-After or the backoff
+    private long mBlockedUntilMillis;
+
+    //throttled or failed responses since the last successful one
+    private int mFailures;
+
+    //the circuit breaker, open until mOpenUntilMillis and then letting a single probe through,
+    //which closes it again if it succeeds
+    private boolean mOpen;
+    private long mOpenUntilMillis;
+    private long mOpenMillis = BASE_OPEN_MILLIS;
+    private boolean mProbeInFlight;
+
+    //construct a budget for an API key allowing the given number of requests per second and per day
+    public RequestBudget(int perSecond, int perDay) {
+        this(perSecond, perDay, new Random(), now());
+    }
+
+    RequestBudget(int perSecond, int perDay, Random random, long nowMillis) {
+        mSecondBucket = new Bucket(perSecond, perSecond / 1000.0, nowMillis);
+        mDayBucket = new Bucket(perDay, perDay / (double) TimeUnit.DAYS.toMillis(1), nowMillis);
+        mRandom = random;
+    }
+
+    //take a token for a request, returns 0 if it may be sent now, otherwise how many milliseconds
+    //to wait before asking again, or DENIED if it shouldn't be sent while the budget is exhausted
+    public long tryAcquire(Priority priority) {
+        return tryAcquire(priority, now());
+    }
+
+    synchronized long tryAcquire(Priority priority, long nowMillis) {
+        long wait = waitMillis(priority, nowMillis);
+        if (wait != 0) {
+            return wait;
+        }
+
+        mSecondBucket.take();
+        mDayBucket.take();
+        if (mOpen) {
+            mProbeInFlight = true;
+        }
+        return 0;
+    }
+
+    //get how many milliseconds until a request could be sent, 0 if it could be sent now,
+    //without taking a token, so a request that was held back knows when to try again
+    public long millisUntilAvailable(Priority priority) {
+        return millisUntilAvailable(priority, now());
+    }
+
+    synchronized long millisUntilAvailable(Priority priority, long nowMillis) {
+        long wait = waitMillis(priority, nowMillis);
+        if (wait != DENIED) {
+            return wait;
+        }
+        if (mOpen) {
+            //the probe's answer decides when the circuit closes, so ask again after a backoff
+            return mProbeInFlight ? BASE_BACKOFF_MILLIS : Math.max(0, mOpenUntilMillis - nowMillis);
+        }
+        return mDayBucket.millisUntil(BACKGROUND_RESERVE);
+    }
+
+    //the wait before a request could be sent as returned by tryAcquire, with the buckets refilled
+    private long waitMillis(Priority priority, long nowMillis) {
+        mSecondBucket.refill(nowMillis);
+        mDayBucket.refill(nowMillis);
+
+        if (mOpen) {
+            //only one request at a time finds out whether the server has recovered
+            if (nowMillis < mOpenUntilMillis || mProbeInFlight) {
+                return DENIED;
+            }
+        } else if (nowMillis < mBlockedUntilMillis) {
+            return mBlockedUntilMillis - nowMillis;
+        }
+
+        boolean background = priority == Priority.BACKGROUND;
+        long dayWait = mDayBucket.millisUntil(background ? BACKGROUND_RESERVE : 0);
+        if (dayWait > 0) {
+            //a day's budget comes back too slowly to be worth waiting for in the background
+            return background ? DENIED : dayWait;
+        }
+        return mSecondBucket.millisUntil(background ? BACKGROUND_RESERVE : 0);
+    }
+
+    //record the status of a response to a request that was let through, with its Retry-After header
+    public void onResponse(int code, String retryAfter) {
+        onResponse(code, retryAfter, now());
+    }
+
+    synchronized void onResponse(int code, String retryAfter, long nowMillis) {
+        if (code != 429 && code < 500) {
+            //any answer that isn't throttling or a server failure shows the server is healthy
+            mFailures = 0;
+            mBlockedUntilMillis = 0;
+            if (mOpen) {
+                mOpen = false;
+                mProbeInFlight = false;
+                mOpenMillis = BASE_OPEN_MILLIS;
+            }
+            return;
+        }
+
+        mFailures++;
+        long delay = parseRetryAfter(retryAfter, nowMillis);
+        if (delay < 0) {
+            delay = backoff(mFailures);
+        }
+        mBlockedUntilMillis = Math.max(mBlockedUntilMillis, nowMillis + delay);
+
+        if (mOpen || mFailures >= TRIP_THRESHOLD) {
+            //a failed probe keeps the circuit open for longer each time
+            if (mOpen) {
+                mOpenMillis = Math.min(mOpenMillis * 2, MAX_OPEN_MILLIS);
+            }
+            mOpen = true;
+            mProbeInFlight = false;
+            mOpenUntilMillis = Math.max(nowMillis + mOpenMillis, mBlockedUntilMillis);
+        }
+    }
+
+    //record that a request that was let through got no response, it doesn't say anything
+    //about the budget but frees the probe of an open circuit
+    public synchronized void onNoResponse() {
+        mProbeInFlight = false;
+    }
+
+    //whether requests are currently being held back because the server throttled us
+    public synchronized boolean isThrottled() {
+        return mOpen || now() < mBlockedUntilMillis;
+    }
+
+    //a random delay between half and all of the exponential backoff, so clients that were
+    //throttled together don't all come back at the same moment
+    private long backoff(int failures) {
+        long backoff = BASE_BACKOFF_MILLIS << Math.min(failures - 1, 20);
+        backoff = Math.min(backoff, MAX_BACKOFF_MILLIS);
+        return backoff / 2 + (long) (mRandom.nextDouble() * (backoff / 2));
+    }
+
+    //read a Retry-After header given in seconds or as an HTTP date, -1 if it's missing or unreadable
+    static long parseRetryAfter(String retryAfter, long nowMillis) {
+        if (retryAfter == null) {
+            return -1;
+        }
+        retryAfter = retryAfter.trim();
+        try {
+            return Math.max(0, TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter)));
+        } catch (NumberFormatException e) {
+            //not a number of seconds, so it should be a date
+        }
+        SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("GMT"));
+        try {
+            return Math.max(0, format.parse(retryAfter).getTime() - nowMillis);
+        } catch (ParseException e) {
+            return -1;
+        }
+    }
+
+    private static long now() {
+        return System.currentTimeMillis();
+    }
+
+    //tokens that refill at a steady rate up to a capacity
+    private static class Bucket {
+        private final double mCapacity;
+        private final double mTokensPerMilli;
+        private double mTokens;
+        private long mLastRefillMillis;
+
+        Bucket(double capacity, double tokensPerMilli, long nowMillis) {
+            mCapacity = capacity;
+            mTokensPerMilli = tokensPerMilli;
+            mTokens = capacity;
+            mLastRefillMillis = nowMillis;
+        }
+
+        void refill(long nowMillis) {
+            if (nowMillis > mLastRefillMillis) {
+                mTokens = Math.min(mCapacity, mTokens + (nowMillis - mLastRefillMillis) * mTokensPerMilli);
+                mLastRefillMillis = nowMillis;
+            }
+        }
+
+        //how long until a token can be taken while leaving the given share of the bucket untouched
+        long millisUntil(double reserve) {
+            double needed = 1 + reserve * mCapacity - mTokens;
+            if (needed <= 0) {
+                return 0;
+            }
+            return (long) Math.ceil(needed / mTokensPerMilli);
+        }
+
+        void take() {
+            mTokens -= 1;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.android.localnews;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+//in-memory cache of recent results keyed by request, each kept for a limited time and only as many
+//as fit its bound, a caller asking for a result that is already being fetched waits for that fetch
+//instead of sending the same request again
+public class ResultCache<V> {
+
+    //how often a caller waiting for another one's fetch checks whether it was cancelled
+    private static final long WAIT_STEP_MILLIS = 100;
+
+    //fetches a result for the cache
+    public interface Fetcher<V> {
+        //fetch the result, null if it couldn't be fetched
+        V fetch();
+
+        //whether the caller no longer wants the result
+        boolean isCancelled();
+    }
+
+    //the most results kept, and how long each is served after it was fetched
+    private final int mMaxEntries;
+    private final long mTtlMillis;
+
+    //results by key, least recently used first
+    private final LinkedHashMap<String, Entry<V>> mEntries = new LinkedHashMap<>(16, 0.75f, true);
+
+    //fetches in progress by key
+    private final Map<String, Flight<V>> mFlights = new HashMap<>();
+
+    //requests answered by another caller's fetch
+    private int mSharedCount;
+
+    //construct a cache holding up to maxEntries results for ttlMillis each
+    public ResultCache(int maxEntries, long ttlMillis) {
+        mMaxEntries = maxEntries;
+        mTtlMillis = ttlMillis;
+    }
+
+    //get the result for a key, from the cache if it is there and fresh, from a fetch of the same key
+    //already in progress, or else by fetching it, returns null if it couldn't be fetched or the
+    //fetcher was cancelled
+    public V get(String key, Fetcher<V> fetcher) {
+        return get(key, fetcher, now());
+    }
+
+    V get(String key, Fetcher<V> fetcher, long nowMillis) {
+        while (!fetcher.isCancelled()) {
+            Flight<V> flight;
+            boolean leader = false;
+            synchronized (this) {
+                V cached = getFresh(key, nowMillis);
+                if (cached != null) {
+                    return cached;
+                }
+                flight = mFlights.get(key);
+                if (flight == null) {
+                    flight = new Flight<>();
+                    mFlights.put(key, flight);
+                    leader = true;
+                } else {
+                    mSharedCount++;
+                }
+            }
+
+            if (leader) {
+                return fetch(key, flight, fetcher, nowMillis);
+            }
+            if (!flight.await(fetcher)) {
+                return null;
+            }
+            if (flight.mResult != null) {
+                return flight.mResult;
+            }
+            //the fetch we waited for failed or its caller gave up on it, perhaps for a reason
+            //that doesn't apply to us, so we try once more ourselves
+        }
+        return null;
+    }
+
+    //remove every result, fetches in progress carry on
+    public synchronized void clear() {
+        mEntries.clear();
+    }
+
+    //get the number of results held
+    public synchronized int size() {
+        return mEntries.size();
+    }
+
+    //get the number of requests that waited for another caller's fetch instead of sending their own
+    public synchronized int getSharedCount() {
+        return mSharedCount;
+    }
+
+    //fetch a result as the one caller doing so, then hand it to everyone waiting for it
+    private V fetch(String key, Flight<V> flight, Fetcher<V> fetcher, long nowMillis) {
+        V result = null;
+        try {
+            result = fetcher.fetch();
+        } finally {
+            synchronized (this) {
+                mFlights.remove(key);
+                if (result != null) {
+                    put(key, result, nowMillis);
+                }
+            }
+            flight.finish(result);
+        }
+        return result;
+    }
+
+    private V getFresh(String key, long nowMillis) {
+        Entry<V> entry = mEntries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (nowMillis >= entry.mExpiresAt) {
+            mEntries.remove(key);
+            return null;
+        }
+        return entry.mValue;
+    }
+
+    //keep a result, dropping expired ones and then the least recently used ones to stay in bounds
+    private void put(String key, V value, long nowMillis) {
+        mEntries.put(key, new Entry<>(value, nowMillis + mTtlMillis));
+        Iterator<Entry<V>> entries = mEntries.values().iterator();
+        while (entries.hasNext()) {
+            Entry<V> entry = entries.next();
+            if (mEntries.size() > mMaxEntries || nowMillis >= entry.mExpiresAt) {
+                entries.remove();
+            }
+        }
+    }
+
+    private static long now() {
+        return System.currentTimeMillis();
+    }
+
+    //a result and when it stops being served
+    private static class Entry<V> {
+        private final V mValue;
+        private final long mExpiresAt;
+
+        Entry(V value, long expiresAt) {
+            mValue = value;
+            mExpiresAt = expiresAt;
+        }
+    }
+
+    //a fetch in progress and the callers waiting for it
+    private static class Flight<V> {
+        private final CountDownLatch mDone = new CountDownLatch(1);
+        private volatile V mResult;
+
+        void finish(V result) {
+            mResult = result;
+            mDone.countDown();
+        }
+
+        //wait for the fetch to finish, returns false if the waiting caller was cancelled first
+        boolean await(Fetcher<V> fetcher) {
+            try {
+                while (!mDone.await(WAIT_STEP_MILLIS, TimeUnit.MILLISECONDS)) {
+                    if (fetcher.isCancelled()) {
+                        return false;
+                    }
+                }
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.android.localnews;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+//histogram of the values recorded over the last few windows of time, precise to within an eighth of
+//a value, recording is a couple of array updates and nothing is allocated until the first value
+public class RollingHistogram {
+
+    //each power of two is split into this many buckets, so a bucket is at most 1/8 of its values wide
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    //values of 2^40 and above are counted in the top bucket, that is 12 days in microseconds
+    private static final int MAX_EXPONENT = 40;
+    static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    //the monotonic clock has an arbitrary origin, times are counted from class load so they stay positive
+    private static final long START_NANOS = System.nanoTime();
+
+    private final long mWindowMillis;
+    private final int mWindows;
+
+    //the counts of each window and the number of the time window each one currently holds
+    private volatile AtomicIntegerArray[] mCounts;
+    private final AtomicLongArray mWindowIds;
+
+    //construct a histogram over the given number of windows of the given length
+    public RollingHistogram(long windowMillis, int windows) {
+        mWindowMillis = windowMillis;
+        mWindows = windows;
+        mWindowIds = new AtomicLongArray(windows);
+        for (int i = 0; i < windows; i++) {
+            mWindowIds.set(i, -1);
+        }
+    }
+
+    //add a value, negative values are counted as 0
+    public void record(long value) {
+        record(value, now());
+    }
+
+    void record(long value, long nowMillis) {
+        long windowId = nowMillis / mWindowMillis;
+        int window = (int) (windowId % mWindows);
+        if (mCounts == null || mWindowIds.get(window) != windowId) {
+            startWindow(window, windowId);
+        }
+        mCounts[window].incrementAndGet(bucketOf(value));
+    }
+
+    //clear a window that last held an older span of time, the rare slow path of record
+    private synchronized void startWindow(int window, long windowId) {
+        if (mCounts == null) {
+            AtomicIntegerArray[] counts = new AtomicIntegerArray[mWindows];
+            for (int i = 0; i < mWindows; i++) {
+                counts[i] = new AtomicIntegerArray(BUCKET_COUNT);
+            }
+            mCounts = counts;
+        }
+        if (mWindowIds.get(window) == windowId) {
+            return;
+        }
+        AtomicIntegerArray counts = mCounts[window];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+        mWindowIds.set(window, windowId);
+    }
+
+    //get the values recorded within the last windows
+    public Snapshot snapshot() {
+        return snapshot(now());
+    }
+
+    synchronized Snapshot snapshot(long nowMillis) {
+        long[] counts = new long[BUCKET_COUNT];
+        if (mCounts != null) {
+            long oldestWindowId = nowMillis / mWindowMillis - mWindows + 1;
+            for (int window = 0; window < mWindows; window++) {
+                if (mWindowIds.get(window) < oldestWindowId) {
+                    continue;
+                }
+                for (int i = 0; i < BUCKET_COUNT; i++) {
+                    counts[i] += mCounts[window].get(i);
+                }
+            }
+        }
+        return new Snapshot(counts);
+    }
+
+    private static long now() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - START_NANOS);
+    }
+
+    //the bucket a value is counted in, values below SUB_BUCKETS get a bucket each
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return value < 0 ? 0 : (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent >= MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        int shift = exponent - SUB_BUCKET_BITS;
+        int mantissa = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return (shift + 1) * SUB_BUCKETS + mantissa;
+    }
+
+    //the smallest value counted in a bucket
+    static long lowestValueOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+    }
+
+    //the counts of a histogram at one moment
+    public static class Snapshot {
+        private final long[] mCounts;
+        private final long mTotal;
+
+        Snapshot(long[] counts) {
+            mCounts = counts;
+            long total = 0;
+            for (long count : counts) {
+                total += count;
+            }
+            mTotal = total;
+        }
+
+        //get the number of values recorded
+        public long getCount() {
+            return mTotal;
+        }
+
+        //get the value below which the given fraction of the values lie, 0 if nothing was recorded,
+        //reported as the middle of its bucket
+        public long getPercentile(double fraction) {
+            if (mTotal == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(fraction * mTotal));
+            long seen = 0;
+            for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+                seen += mCounts[bucket];
+                if (seen >= rank) {
+                    return middleOf(bucket);
+                }
+            }
+            return middleOf(BUCKET_COUNT - 1);
+        }
+
+        //get the largest value recorded, to the precision of its bucket
+        public long getMax() {
+            for (int bucket = BUCKET_COUNT - 1; bucket >= 0; bucket--) {
+                if (mCounts[bucket] > 0) {
+                    return middleOf(bucket);
+                }
+            }
+            return 0;
+        }
+
+        private static long middleOf(int bucket) {
+            long lowest = lowestValueOf(bucket);
+            if (bucket == BUCKET_COUNT - 1) {
+                return lowest;
+            }
+            return lowest + (lowestValueOf(bucket + 1) - lowest - 1) / 2;
+        }
+    }
+}
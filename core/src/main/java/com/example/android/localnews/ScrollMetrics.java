@@ -0,0 +1,103 @@
+package com.example.android.localnews;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+//rolling histograms of how smoothly the news list scrolls, the time of each frame drawn while the
+//user moves the list, the frames it dropped, the time each row takes to bind and the messages that
+//blocked the main thread, covering the last hour, nothing is measured until it is enabled
+public final class ScrollMetrics {
+
+    //the histograms roll over in six windows of ten minutes, like the fetch metrics
+    private static final long WINDOW_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    private static final int WINDOWS = 6;
+
+    //a message running longer than this on the main thread is a block, several frames are lost to it
+    static final long BLOCK_THRESHOLD_MICROS = TimeUnit.MILLISECONDS.toMicros(50);
+
+    //the values recorded while the list is moving
+    public enum Stage {
+        FRAME("us"),
+        DROPPED_FRAMES("count"),
+        ROW_BIND("us"),
+        MAIN_THREAD_BLOCK("us");
+
+        private final String mUnit;
+        private final RollingHistogram mHistogram = new RollingHistogram(WINDOW_MILLIS, WINDOWS);
+
+        Stage(String unit) {
+            mUnit = unit;
+        }
+
+        public String getUnit() {
+            return mUnit;
+        }
+
+        public RollingHistogram getHistogram() {
+            return mHistogram;
+        }
+    }
+
+    //read on every row bind, so turning the metrics off costs a field read and nothing else
+    private static volatile boolean sEnabled;
+
+    private ScrollMetrics() {
+    }
+
+    public static boolean isEnabled() {
+        return sEnabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        sEnabled = enabled;
+    }
+
+    //record a frame that took a duration to produce on a display refreshing at an interval,
+    //along with the refreshes it missed if it took longer than one
+    public static void recordFrame(long durationNanos, long intervalNanos) {
+        Stage.FRAME.mHistogram.record(TimeUnit.NANOSECONDS.toMicros(durationNanos));
+        int dropped = droppedFrames(durationNanos, intervalNanos);
+        if (dropped > 0) {
+            Stage.DROPPED_FRAMES.mHistogram.record(dropped);
+        }
+    }
+
+    //record the time from the start of one frame to the next, where the time to produce a frame
+    //isn't known, frames start on a refresh so the time is a whole number of refresh intervals
+    //give or take some jitter
+    public static void recordFrameInterval(long frameIntervalNanos, long intervalNanos) {
+        Stage.FRAME.mHistogram.record(TimeUnit.NANOSECONDS.toMicros(frameIntervalNanos));
+        long dropped = Math.round(frameIntervalNanos / (double) intervalNanos) - 1;
+        if (dropped > 0) {
+            Stage.DROPPED_FRAMES.mHistogram.record(dropped);
+        }
+    }
+
+    //record the time a row took to bind
+    public static void recordBind(long micros) {
+        Stage.ROW_BIND.mHistogram.record(micros);
+    }
+
+    //record the time a message ran on the main thread, only kept if it blocked it
+    public static void recordMessage(long micros) {
+        if (micros >= BLOCK_THRESHOLD_MICROS) {
+            Stage.MAIN_THREAD_BLOCK.mHistogram.record(micros);
+        }
+    }
+
+    //the refreshes of the display a frame missed, 0 if it was ready in time for the next one
+    static int droppedFrames(long durationNanos, long intervalNanos) {
+        if (durationNanos <= intervalNanos) {
+            return 0;
+        }
+        return (int) ((durationNanos - 1) / intervalNanos);
+    }
+
+    //write the histograms as tab separated lines in the columns of the fetch metrics,
+    //so they can follow them in the same export
+    public static void export(Appendable out) throws IOException {
+        for (Stage stage : Stage.values()) {
+            FetchMetrics.exportRow(out, stage.name(), stage.mUnit, stage.mHistogram);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.android.localnews;
+
+import java.util.HashMap;
+import java.util.Map;
+
+//deduplicates strings that repeat across many articles, such as section and contributor names,
+//so every article holding one shares a single copy
+public final class StringPool {
+
+    //the pool shared by all news articles
+    public static final StringPool SHARED = new StringPool(2048);
+
+    //the number of distinct strings kept before the pool starts over
+    private final int mMaxSize;
+
+    private final Map<String, String> mStrings = new HashMap<>();
+
+    //construct a new pool holding up to a given number of distinct strings
+    public StringPool(int maxSize) {
+        mMaxSize = maxSize;
+    }
+
+    //get the pooled copy of a string, adding it to the pool if it is new
+    public synchronized String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+
+        String pooled = mStrings.get(value);
+        if (pooled != null) {
+            return pooled;
+        }
+
+        //a full pool is simply emptied, strings already shared stay shared
+        if (mStrings.size() >= mMaxSize) {
+            mStrings.clear();
+        }
+        mStrings.put(value, value);
+        return value;
+    }
+}
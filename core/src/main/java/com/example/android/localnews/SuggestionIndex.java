@@ -0,0 +1,191 @@
+package com.example.android.localnews;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+//prefix index of the phrases a user may want to search for, ranked by how often and how recently
+//they were seen, answering a keystroke with a binary search over a sorted list and staying
+//within a fixed memory budget by dropping the lowest ranked phrases
+public class SuggestionIndex {
+
+    //the weight of a sighting halves over this time, so a phrase seen often long ago ranks
+    //below one seen a few times lately
+    static final long HALF_LIFE_MILLIS = TimeUnit.DAYS.toMillis(7);
+
+    //the memory a phrase takes besides its characters: the entry, the map node and two strings
+    static final int ENTRY_OVERHEAD_BYTES = 120;
+
+    //once over budget the index is trimmed to this share of it, so it isn't trimmed on every add
+    private static final double TRIM_TO_SHARE = 0.75;
+
+    //orders phrases by their normalized text, so the phrases starting with a prefix are adjacent
+    private static final Comparator<Phrase> BY_KEY = new Comparator<Phrase>() {
+        @Override
+        public int compare(Phrase a, Phrase b) {
+            return a.mKey.compareTo(b.mKey);
+        }
+    };
+
+    //orders phrases lowest rank first
+    private static final Comparator<Phrase> BY_RANK = new Comparator<Phrase>() {
+        @Override
+        public int compare(Phrase a, Phrase b) {
+            return Double.compare(a.mRank, b.mRank);
+        }
+    };
+
+    private final long mMaxBytes;
+
+    //the phrases by normalized text
+    private final Map<String, Phrase> mPhrases = new HashMap<>();
+
+    //the phrases sorted by normalized text, a new phrase is inserted in place so a lookup right
+    //after an add, as happens while pages of articles stream in, doesn't sort the whole index
+    private final List<Phrase> mSorted = new ArrayList<>();
+
+    //the estimated memory the phrases take
+    private long mBytes;
+
+    //construct an index taking up to maxBytes of memory
+    public SuggestionIndex(long maxBytes) {
+        mMaxBytes = maxBytes;
+    }
+
+    //count a sighting of a phrase with a weight at a time in epoch milliseconds,
+    //the phrase is suggested as it was last given
+    public synchronized void add(String text, double weight, long nowMillis) {
+        String key = normalize(text);
+        if (key.isEmpty() || weight <= 0) {
+            return;
+        }
+
+        Phrase phrase = mPhrases.get(key);
+        if (phrase == null) {
+            phrase = new Phrase(key, text.trim());
+            mPhrases.put(key, phrase);
+            mSorted.add(firstAtOrAfter(mSorted, key), phrase);
+            mBytes += sizeOf(phrase);
+            phrase.mRank = rankOf(weight, nowMillis);
+        } else {
+            //the rank is the log of the weight as it would have decayed to time 0, so adding to it
+            //means decaying the new weight the same way
+            double decayed = Math.pow(2, phrase.mRank - nowMillis / (double) HALF_LIFE_MILLIS);
+            phrase.mRank = rankOf(decayed + weight, nowMillis);
+            mBytes -= sizeOf(phrase);
+            phrase.mText = text.trim();
+            mBytes += sizeOf(phrase);
+        }
+
+        if (mBytes > mMaxBytes) {
+            trim();
+        }
+    }
+
+    //get up to max phrases starting with a prefix, highest ranked first,
+    //the phrase matching the prefix itself is left out as there is nothing to complete
+    public synchronized List<String> suggest(String prefix, int max) {
+        if (max <= 0) {
+            return new ArrayList<>();
+        }
+        String key = normalize(prefix);
+        List<Phrase> sorted = mSorted;
+
+        //the best max phrases found so far, highest ranked first
+        Phrase[] best = new Phrase[max];
+        int found = 0;
+        for (int i = firstAtOrAfter(sorted, key); i < sorted.size() && sorted.get(i).mKey.startsWith(key); i++) {
+            Phrase phrase = sorted.get(i);
+            if (phrase.mKey.equals(key) || (found == max && phrase.mRank <= best[max - 1].mRank)) {
+                continue;
+            }
+            int at = Math.min(found, max - 1);
+            while (at > 0 && best[at - 1].mRank < phrase.mRank) {
+                best[at] = best[at - 1];
+                at--;
+            }
+            best[at] = phrase;
+            found = Math.min(found + 1, max);
+        }
+
+        List<String> suggestions = new ArrayList<>(found);
+        for (int i = 0; i < found; i++) {
+            suggestions.add(best[i].mText);
+        }
+        return suggestions;
+    }
+
+    //get the number of phrases held
+    public synchronized int size() {
+        return mPhrases.size();
+    }
+
+    //get the estimated memory the phrases take
+    public synchronized long getSizeBytes() {
+        return mBytes;
+    }
+
+    //the form phrases are compared in, lower case with single spaces
+    static String normalize(String text) {
+        return text.trim().replaceAll("\\s+", " ").toLowerCase(Locale.US);
+    }
+
+    //the log of a weight decayed back to time 0, which orders phrases the same way their
+    //weights decayed to any later time would
+    private static double rankOf(double weight, long nowMillis) {
+        return Math.log(weight) / Math.log(2) + nowMillis / (double) HALF_LIFE_MILLIS;
+    }
+
+    private static long sizeOf(Phrase phrase) {
+        return ENTRY_OVERHEAD_BYTES + 2L * (phrase.mKey.length() + phrase.mText.length());
+    }
+
+    //the position of the first phrase at or after a key in sorted order
+    private static int firstAtOrAfter(List<Phrase> sorted, String key) {
+        int low = 0;
+        int high = sorted.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sorted.get(middle).mKey.compareTo(key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    //drop the lowest ranked phrases until the index is well within its budget
+    private void trim() {
+        Phrase[] byRank = mPhrases.values().toArray(new Phrase[mPhrases.size()]);
+        Arrays.sort(byRank, BY_RANK);
+        long target = (long) (mMaxBytes * TRIM_TO_SHARE);
+        for (int i = 0; i < byRank.length && mBytes > target; i++) {
+            mPhrases.remove(byRank[i].mKey);
+            mBytes -= sizeOf(byRank[i]);
+        }
+
+        //the phrases kept are sorted again in one go rather than removed one at a time
+        mSorted.clear();
+        mSorted.addAll(mPhrases.values());
+        Collections.sort(mSorted, BY_KEY);
+    }
+
+    //a phrase, its text as shown and its rank
+    private static class Phrase {
+        private final String mKey;
+        private String mText;
+        private double mRank;
+
+        Phrase(String key, String text) {
+            mKey = key;
+            mText = text;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.android.localnews;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+//smoothed estimate of how quickly one kind of network answers and delivers a page of results,
+//from the timings of the requests sent over it, used to size pages so a page arrives within
+//a time budget whatever the network, the size is one of a few fixed ones and only changes when
+//the estimate has moved well past the next one, since the page size is part of the request URL
+//and so of the keys of the HTTP and result caches
+public class ThroughputEstimator {
+
+    //the weight of each new request in the estimate, so a change of network conditions shows
+    //after a few requests while one slow request doesn't swing the page size
+    static final double SMOOTHING = 0.25;
+
+    //bodies smaller than this are mostly the ramp up of the connection, so they say little
+    //about its throughput
+    static final long MIN_THROUGHPUT_BYTES = 8 * 1024;
+
+    //how far past a page size the estimate has to move before a different size is chosen
+    static final double HYSTERESIS = 0.2;
+
+    //the smoothed time to first byte, throughput and size of an article in the response,
+    //0 until they have been measured
+    private double mTimeToFirstByteMillis;
+    private double mBytesPerSecond;
+    private double mBytesPerArticle;
+
+    //the requests the estimate is made from
+    private int mSamples;
+
+    //the page size last chosen for each time budget
+    private final Map<Long, Integer> mChosenSizes = new HashMap<>();
+
+    //construct an estimate of a network nothing has been sent over yet
+    public ThroughputEstimator() {
+    }
+
+    //construct an estimate from one saved earlier
+    public ThroughputEstimator(double timeToFirstByteMillis, double bytesPerSecond, double bytesPerArticle,
+                               int samples) {
+        mTimeToFirstByteMillis = timeToFirstByteMillis;
+        mBytesPerSecond = bytesPerSecond;
+        mBytesPerArticle = bytesPerArticle;
+        mSamples = samples;
+    }
+
+    //add the timings of a request, -1 for what wasn't measured
+    public synchronized void record(long timeToFirstByteMicros, long downloadMicros, long bytes, int articles) {
+        boolean recorded = false;
+        if (timeToFirstByteMicros >= 0) {
+            mTimeToFirstByteMillis = smooth(mTimeToFirstByteMillis, timeToFirstByteMicros / 1000.0);
+            recorded = true;
+        }
+        if (downloadMicros > 0 && bytes >= MIN_THROUGHPUT_BYTES) {
+            mBytesPerSecond = smooth(mBytesPerSecond, bytes * 1000000.0 / downloadMicros);
+            recorded = true;
+        }
+        if (bytes > 0 && articles > 0) {
+            mBytesPerArticle = smooth(mBytesPerArticle, bytes / (double) articles);
+            recorded = true;
+        }
+        if (recorded) {
+            mSamples++;
+        }
+    }
+
+    //get the page size, out of the given sizes in ascending order, holding as many articles as can
+    //arrive within a time budget, or the fallback size until the network has been measured
+    public synchronized int getPageSize(long budgetMillis, int[] sizes, int fallbackSize) {
+        if (mBytesPerSecond <= 0 || mBytesPerArticle <= 0) {
+            return fallbackSize;
+        }
+        double transferMillis = budgetMillis - mTimeToFirstByteMillis;
+        double articles = Math.max(0, transferMillis / 1000 * mBytesPerSecond / mBytesPerArticle);
+
+        Integer chosen = mChosenSizes.get(budgetMillis);
+        int size = chosen == null ? snap(articles, sizes) : chosen;
+        if (articles >= size * (1 + HYSTERESIS)) {
+            //a larger size is only taken once the estimate has cleared it by the margin
+            size = Math.max(size, snap(articles / (1 + HYSTERESIS), sizes));
+        } else if (articles < size * (1 - HYSTERESIS)) {
+            size = snap(articles, sizes);
+        }
+        mChosenSizes.put(budgetMillis, size);
+        return size;
+    }
+
+    public synchronized double getTimeToFirstByteMillis() {
+        return mTimeToFirstByteMillis;
+    }
+
+    public synchronized double getBytesPerSecond() {
+        return mBytesPerSecond;
+    }
+
+    public synchronized double getBytesPerArticle() {
+        return mBytesPerArticle;
+    }
+
+    public synchronized int getSamples() {
+        return mSamples;
+    }
+
+    //get a one line summary of the estimate for logging
+    public synchronized String getSummary() {
+        return String.format(Locale.US, "ttfb=%.0fms throughput=%.0fKB/s article=%.0fB samples=%d",
+                mTimeToFirstByteMillis, mBytesPerSecond / 1024, mBytesPerArticle, mSamples);
+    }
+
+    //the largest of the sizes holding no more than a number of articles, or the smallest size
+    private static int snap(double articles, int[] sizes) {
+        int size = sizes[0];
+        for (int i = 0; i < sizes.length && sizes[i] <= articles; i++) {
+            size = sizes[i];
+        }
+        return size;
+    }
+
+    //the first measurement is taken as it is, later ones move the estimate part of the way
+    private static double smooth(double estimate, double sample) {
+        return estimate <= 0 ? sample : estimate + SMOOTHING * (sample - estimate);
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.android.localnews;
+
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.Random;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the hand written timestamp codec against SimpleDateFormat.
+ */
+public class Iso8601Test {
+
+    @Test
+    public void parse_matchesSimpleDateFormat() throws Exception {
+        SimpleDateFormat legacyFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssZ");
+        SimpleDateFormat utcFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
+        utcFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            //any second within a century either side of 1970, so from about 1870 to 2070
+            long millis = (random.nextLong() % 3155760000L) * 1000;
+            String timestamp = utcFormat.format(millis);
+
+            long expected = legacyFormat.parse(timestamp.replaceAll("Z$", "+0000")).getTime();
+            assertEquals(timestamp, expected, Iso8601.parse(timestamp));
+            assertEquals(timestamp, Iso8601.format(expected));
+        }
+    }
+
+    @Test
+    public void parse_offsetsAndFractions() {
+        long utc = Iso8601.parse("2018-08-20T14:12:05Z");
+        assertEquals(utc, Iso8601.parse("2018-08-20T16:12:05+02:00"));
+        assertEquals(utc, Iso8601.parse("2018-08-20T09:12:05-0500"));
+        assertEquals(utc + 250, Iso8601.parse("2018-08-20T14:12:05.25Z"));
+        assertEquals(utc + 123, Iso8601.parse("2018-08-20T14:12:05.123456Z"));
+        assertEquals(951782400000L, Iso8601.parse("2000-02-29T00:00:00Z"));
+    }
+
+    @Test
+    public void parse_rejectsMalformedTimestamps() {
+        assertEquals(Iso8601.INVALID, Iso8601.parse(null));
+        assertEquals(Iso8601.INVALID, Iso8601.parse(""));
+        assertEquals(Iso8601.INVALID, Iso8601.parse("2018-08-20"));
+        assertEquals(Iso8601.INVALID, Iso8601.parse("2018-08-20T14:12:05"));
+        assertEquals(Iso8601.INVALID, Iso8601.parse("2018-13-20T14:12:05Z"));
+        assertEquals(Iso8601.INVALID, Iso8601.parse("2019-02-29T14:12:05Z"));
+        assertEquals(Iso8601.INVALID, Iso8601.parse("2018-08-20T14:12:05Zjunk"));
+        assertEquals(Iso8601.INVALID, Iso8601.parse("2018-08-20T14:12:05."));
+    }
+}
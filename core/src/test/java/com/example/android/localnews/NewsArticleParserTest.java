@@ -0,0 +1,162 @@
+package com.example.android.localnews;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the streaming parser against the org.json parser it replaced, using recorded
+ * Guardian search responses.
+ */
+public class NewsArticleParserTest {
+
+    @Test
+    public void parse_matchesJsonObjectParser() throws Exception {
+        assertSameArticles("guardian_search_nevada.json");
+    }
+
+    @Test
+    public void parse_emptyResults() throws Exception {
+        assertSameArticles("guardian_search_empty.json");
+        assertTrue(NewsArticleParser.parse(openFixture("guardian_search_empty.json")).isEmpty());
+    }
+
+    @Test
+    public void parse_missingTagsUsesNoAuthor() throws Exception {
+        List<NewsArticle> articles = NewsArticleParser.parse(openFixture("guardian_search_nevada.json"));
+        assertEquals(NewsArticleParser.NO_AUTHOR, articles.get(3).getAuthor());
+    }
+
+    @Test
+    public void parse_readsThumbnailField() throws Exception {
+        String json = "{\"response\":{\"results\":["
+                + "{\"webUrl\":\"a\",\"fields\":{\"thumbnail\":\"https://media.example/a.jpg\"}},"
+                + "{\"webUrl\":\"b\",\"fields\":{}},"
+                + "{\"webUrl\":\"c\"}]}}";
+        List<NewsArticle> articles = NewsArticleParser.parse(new ByteArrayInputStream(json.getBytes("UTF-8")));
+        assertEquals("https://media.example/a.jpg", articles.get(0).getThumbnailUrl());
+        assertEquals("", articles.get(1).getThumbnailUrl());
+        assertEquals("", articles.get(2).getThumbnailUrl());
+    }
+
+    @Test
+    public void parse_skipsAResponseOrResultsOfAnotherShape() throws Exception {
+        assertTrue(parse("{\"response\":\"unavailable\"}").isEmpty());
+
+        List<NewsArticle> articles = parse("{\"response\":{\"results\":[\"a\",{\"webUrl\":\"b\"},7]}}");
+        assertEquals(1, articles.size());
+        assertEquals("b", articles.get(0).getUrl());
+    }
+
+    @Test
+    public void parse_wronglyShapedResponseFailsWithIOException() throws Exception {
+        String[] bodies = {
+                "[\"not\", \"an\", \"object\"]",
+                "{\"response\":{\"results\":[{\"webTitle\":{\"text\":\"A\"}}]}}",
+        };
+        for (String body : bodies) {
+            try {
+                parse(body);
+                fail("parsed " + body);
+            } catch (IOException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void parseBodyText_readsContentFields() throws Exception {
+        String json = "{\"response\":{\"status\":\"ok\",\"content\":{\"id\":\"a\","
+                + "\"fields\":{\"headline\":\"A\",\"bodyText\":\"First paragraph. Second paragraph.\"}}}}";
+        assertEquals("First paragraph. Second paragraph.",
+                NewsArticleParser.parseBodyText(new ByteArrayInputStream(json.getBytes("UTF-8"))));
+    }
+
+    @Test
+    public void parseBodyText_emptyWithoutFields() throws Exception {
+        String json = "{\"response\":{\"status\":\"ok\",\"content\":{\"id\":\"a\"}}}";
+        assertEquals("", NewsArticleParser.parseBodyText(new ByteArrayInputStream(json.getBytes("UTF-8"))));
+    }
+
+    private static List<NewsArticle> parse(String json) throws IOException {
+        return NewsArticleParser.parse(new ByteArrayInputStream(json.getBytes("UTF-8")));
+    }
+
+    private void assertSameArticles(String fixture) throws Exception {
+        List<NewsArticle> expected = parseWithJsonObject(new String(readFixture(fixture), "UTF-8"));
+        List<NewsArticle> actual = NewsArticleParser.parse(openFixture(fixture));
+
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getTitle(), actual.get(i).getTitle());
+            assertEquals(expected.get(i).getAuthor(), actual.get(i).getAuthor());
+            assertEquals(expected.get(i).getSection(), actual.get(i).getSection());
+            assertEquals(expected.get(i).getUrl(), actual.get(i).getUrl());
+            assertEquals(expected.get(i).getPublished(), actual.get(i).getPublished());
+            assertEquals(expected.get(i).getThumbnailUrl(), actual.get(i).getThumbnailUrl());
+        }
+    }
+
+    private InputStream openFixture(String name) throws IOException {
+        return new ByteArrayInputStream(readFixture(name));
+    }
+
+    private byte[] readFixture(String name) throws IOException {
+        InputStream in = getClass().getClassLoader().getResourceAsStream(name);
+        assertNotNull("missing fixture " + name, in);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int count;
+            while ((count = in.read(buffer)) != -1) {
+                out.write(buffer, 0, count);
+            }
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+
+    //the original JSONObject based parser, kept here as the reference implementation
+    private static List<NewsArticle> parseWithJsonObject(String newsArticleJSON) throws JSONException, ParseException {
+        List<NewsArticle> newsArticles = new ArrayList<>();
+
+        JSONArray newsArticleArray = new JSONObject(newsArticleJSON).getJSONObject("response").getJSONArray("results");
+        for (int i = 0; i < newsArticleArray.length(); i++) {
+            JSONObject currentNewsArticle = newsArticleArray.getJSONObject(i);
+
+            String author;
+            if (currentNewsArticle.has("tags")) {
+                author = currentNewsArticle.getJSONArray("tags").getJSONObject(0).optString("webTitle");
+            } else {
+                author = "No Author Provided";
+            }
+
+            SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssZ");
+            Date date = dateFormat.parse(currentNewsArticle.optString("webPublicationDate").replaceAll("Z$", "+0000"));
+
+            String thumbnailUrl = "";
+            if (currentNewsArticle.has("fields")) {
+                thumbnailUrl = currentNewsArticle.getJSONObject("fields").optString("thumbnail");
+            }
+
+            newsArticles.add(new NewsArticle(currentNewsArticle.optString("webTitle"), author,
+                    currentNewsArticle.optString("sectionName"), currentNewsArticle.optString("webUrl"), date.getTime(),
+                    thumbnailUrl));
+        }
+
+        return newsArticles;
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.android.localnews;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs the default transport against a local stand-in server.
+ */
+public class OkHttpTransportTest {
+
+    private MockWebServer mServer;
+
+    @Before
+    public void setUp() throws Exception {
+        mServer = new MockWebServer();
+        mServer.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mServer.shutdown();
+    }
+
+    @Test
+    public void sequentialFetches_reuseOneConnection() throws Exception {
+        int fetches = 5;
+        for (int i = 0; i < fetches; i++) {
+            mServer.enqueue(new MockResponse().setBody("{\"response\":{\"results\":[]}}"));
+        }
+
+        HttpTransport transport = new OkHttpTransport();
+        for (int i = 0; i < fetches; i++) {
+            HttpTransport.Response response = transport.newCall(
+                    new HttpTransport.Request(mServer.url("/search?page=" + i).toString())).execute();
+            try {
+                assertEquals(200, response.getCode());
+                NewsArticleParser.parse(response.getBody());
+            } finally {
+                response.close();
+            }
+        }
+
+        //the sequence number counts requests made on the same connection
+        for (int i = 0; i < fetches; i++) {
+            assertEquals(i, mServer.takeRequest().getSequenceNumber());
+        }
+        assertEquals(fetches, mServer.getRequestCount());
+    }
+
+    @Test
+    public void gzipBody_isNegotiatedAndDecoded() throws Exception {
+        String body = "{\"response\":{\"results\":[{\"webTitle\":\"Compressed\"}]}}";
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        GZIPOutputStream gzip = new GZIPOutputStream(compressed);
+        gzip.write(body.getBytes("UTF-8"));
+        gzip.close();
+        mServer.enqueue(new MockResponse()
+                .setHeader("Content-Encoding", "gzip")
+                .setBody(new Buffer().write(compressed.toByteArray())));
+
+        HttpTransport.Response response = new OkHttpTransport().newCall(
+                new HttpTransport.Request(mServer.url("/search").toString())).execute();
+        try {
+            InputStream in = response.getBody();
+            assertEquals("Compressed", NewsArticleParser.parse(in).get(0).getTitle());
+        } finally {
+            response.close();
+        }
+
+        RecordedRequest request = mServer.takeRequest();
+        assertEquals("gzip", request.getHeader("Accept-Encoding"));
+    }
+
+    @Test
+    public void perCallTimeouts_keepTheSharedConnectionPool() throws Exception {
+        mServer.enqueue(new MockResponse().setBody("{}"));
+        mServer.enqueue(new MockResponse().setBody("{}"));
+
+        HttpTransport transport = new OkHttpTransport();
+        transport.newCall(new HttpTransport.Request(mServer.url("/a").toString())).execute().close();
+
+        HttpTransport.Request request = new HttpTransport.Request(mServer.url("/b").toString());
+        request.setTimeouts(1000, 2000);
+        transport.newCall(request).execute().close();
+
+        mServer.takeRequest();
+        assertEquals(1, mServer.takeRequest().getSequenceNumber());
+    }
+
+    @Test
+    public void timings_coverEveryStage() throws Exception {
+        String body = "{\"response\":{\"results\":[{\"webTitle\":\"Timed\"}]}}";
+        mServer.enqueue(new MockResponse().setBody(body).setHeadersDelay(20, TimeUnit.MILLISECONDS));
+
+        FetchTimings timings = new FetchTimings();
+        HttpTransport.Request request = new HttpTransport.Request(mServer.url("/search").toString());
+        request.setTimings(timings);
+        HttpTransport.Response response = new OkHttpTransport().newCall(request).execute();
+        try {
+            timings.bodyEnd(NewsArticleParser.parse(timings.instrument(response.getBody())).size());
+        } finally {
+            response.close();
+        }
+
+        //a fresh transport has to open its connection
+        assertTrue(timings.getConnectMicros() >= 0);
+        assertTrue(timings.getTimeToFirstByteMicros() >= 20000);
+        assertTrue(timings.getDownloadMicros() >= 0);
+        assertTrue(timings.getParseMicros() >= 0);
+        assertEquals(body.length(), timings.getPayloadBytes());
+        assertEquals(1, timings.getArticles());
+    }
+}
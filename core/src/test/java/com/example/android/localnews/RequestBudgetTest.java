@@ -0,0 +1,132 @@
+package com.example.android.localnews;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static com.example.android.localnews.RequestBudget.Priority.BACKGROUND;
+import static com.example.android.localnews.RequestBudget.Priority.FOREGROUND;
+import static org.junit.Assert.*;
+
+/**
+ * Drives the request budget with a made up clock.
+ */
+public class RequestBudgetTest {
+
+    private static final long START = 1000000;
+
+    @Test
+    public void burst_isLimitedPerSecond() {
+        RequestBudget budget = new RequestBudget(4, 1000, new Random(1), START);
+        for (int i = 0; i < 4; i++) {
+            assertEquals(0, budget.tryAcquire(FOREGROUND, START));
+        }
+        long wait = budget.tryAcquire(FOREGROUND, START);
+        assertEquals(250, wait);
+        assertEquals(0, budget.tryAcquire(FOREGROUND, START + wait));
+    }
+
+    @Test
+    public void background_leavesReserveForForeground() {
+        RequestBudget budget = new RequestBudget(4, 1000, new Random(1), START);
+        assertEquals(0, budget.tryAcquire(BACKGROUND, START));
+        assertEquals(0, budget.tryAcquire(BACKGROUND, START));
+
+        //only the reserved half of the bucket is left, which background work doesn't touch
+        assertTrue(budget.tryAcquire(BACKGROUND, START) > 0);
+        assertEquals(0, budget.tryAcquire(FOREGROUND, START));
+    }
+
+    @Test
+    public void background_isDeniedOnceTheDayRunsLow() {
+        RequestBudget budget = new RequestBudget(1000, 10, new Random(1), START);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, budget.tryAcquire(BACKGROUND, START));
+        }
+        assertEquals(RequestBudget.DENIED, budget.tryAcquire(BACKGROUND, START));
+        assertEquals(0, budget.tryAcquire(FOREGROUND, START));
+    }
+
+    @Test
+    public void retryAfter_holdsBackRequests() {
+        RequestBudget budget = new RequestBudget(10, 1000, new Random(1), START);
+        assertEquals(0, budget.tryAcquire(FOREGROUND, START));
+        budget.onResponse(429, "30", START);
+        assertEquals(30000, budget.tryAcquire(FOREGROUND, START));
+        assertEquals(0, budget.tryAcquire(FOREGROUND, START + 30000));
+
+        //one minute after the last request, given as a date
+        budget.onResponse(503, "Thu, 01 Jan 1970 00:18:10 GMT", START + 30000);
+        assertEquals(60000, budget.tryAcquire(FOREGROUND, START + 30000));
+    }
+
+    @Test
+    public void backoff_growsWithJitter() {
+        RequestBudget budget = new RequestBudget(10, 1000, new Random(1), START);
+        long now = START;
+        long previousMax = 0;
+        for (int failures = 1; failures < RequestBudget.TRIP_THRESHOLD; failures++) {
+            budget.onResponse(429, null, now);
+            long wait = budget.tryAcquire(FOREGROUND, now);
+            long full = RequestBudget.BASE_BACKOFF_MILLIS << (failures - 1);
+            assertTrue(wait >= full / 2 && wait <= full);
+            assertTrue(full > previousMax);
+            previousMax = full;
+            now += wait;
+        }
+    }
+
+    @Test
+    public void sustainedThrottling_opensTheCircuit() {
+        RequestBudget budget = new RequestBudget(10, 1000, new Random(1), START);
+        long now = START;
+        for (int i = 0; i < RequestBudget.TRIP_THRESHOLD; i++) {
+            budget.onResponse(429, "1", now);
+            now += 1000;
+        }
+        assertEquals(RequestBudget.DENIED, budget.tryAcquire(FOREGROUND, now));
+
+        //once it has cooled down a single probe goes through
+        now = START + RequestBudget.BASE_OPEN_MILLIS + 5000;
+        assertEquals(0, budget.tryAcquire(FOREGROUND, now));
+        assertEquals(RequestBudget.DENIED, budget.tryAcquire(FOREGROUND, now));
+
+        //a throttled probe keeps the circuit open for twice as long
+        budget.onResponse(429, null, now);
+        assertEquals(RequestBudget.DENIED, budget.tryAcquire(FOREGROUND, now + RequestBudget.BASE_OPEN_MILLIS + 1));
+        now += 2 * RequestBudget.BASE_OPEN_MILLIS;
+        assertEquals(0, budget.tryAcquire(FOREGROUND, now));
+
+        //and a successful one closes it
+        budget.onResponse(200, null, now);
+        assertEquals(0, budget.tryAcquire(FOREGROUND, now));
+        assertEquals(0, budget.tryAcquire(FOREGROUND, now));
+    }
+
+    @Test
+    public void millisUntilAvailable_saysWhenToTryAgainWithoutTakingTokens() {
+        RequestBudget budget = new RequestBudget(10, 1000, new Random(1), START);
+        assertEquals(0, budget.millisUntilAvailable(FOREGROUND, START));
+        assertEquals(0, budget.millisUntilAvailable(FOREGROUND, START));
+
+        budget.onResponse(429, "30", START);
+        assertEquals(30000, budget.millisUntilAvailable(FOREGROUND, START));
+
+        //an open circuit, which denies requests outright, is available again once it has cooled down
+        long now = START;
+        for (int i = 0; i < RequestBudget.TRIP_THRESHOLD; i++) {
+            budget.onResponse(429, "1", now);
+        }
+        assertEquals(RequestBudget.DENIED, budget.tryAcquire(FOREGROUND, now));
+        assertTrue(budget.millisUntilAvailable(FOREGROUND, now) >= RequestBudget.BASE_OPEN_MILLIS);
+    }
+
+    @Test
+    public void parseRetryAfter_readsSecondsAndDates() {
+        assertEquals(120000, RequestBudget.parseRetryAfter(" 120 ", 0));
+        assertEquals(5000, RequestBudget.parseRetryAfter("Thu, 01 Jan 1970 00:00:10 GMT", 5000));
+        assertEquals(0, RequestBudget.parseRetryAfter("Thu, 01 Jan 1970 00:00:10 GMT", 50000));
+        assertEquals(-1, RequestBudget.parseRetryAfter("soon", 0));
+        assertEquals(-1, RequestBudget.parseRetryAfter(null, 0));
+    }
+}
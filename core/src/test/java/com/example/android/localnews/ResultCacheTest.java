@@ -0,0 +1,201 @@
+package com.example.android.localnews;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the expiry, bound and request collapsing of the in-memory result cache.
+ */
+public class ResultCacheTest {
+
+    private static final long START = 1000000;
+    private static final long TTL = 60000;
+
+    @Test
+    public void get_servesFreshResultWithoutFetching() {
+        ResultCache<String> cache = new ResultCache<>(4, TTL);
+        CountingFetcher fetcher = new CountingFetcher("result");
+
+        assertEquals("result", cache.get("a", fetcher, START));
+        assertEquals("result", cache.get("a", fetcher, START + TTL - 1));
+        assertEquals(1, fetcher.mFetches.get());
+    }
+
+    @Test
+    public void get_fetchesAgainOnceExpired() {
+        ResultCache<String> cache = new ResultCache<>(4, TTL);
+        CountingFetcher fetcher = new CountingFetcher("result");
+
+        cache.get("a", fetcher, START);
+        cache.get("a", fetcher, START + TTL);
+        assertEquals(2, fetcher.mFetches.get());
+    }
+
+    @Test
+    public void get_evictsLeastRecentlyUsed() {
+        ResultCache<String> cache = new ResultCache<>(2, TTL);
+        CountingFetcher fetcher = new CountingFetcher("result");
+
+        cache.get("a", fetcher, START);
+        cache.get("b", fetcher, START);
+        cache.get("a", fetcher, START);
+        cache.get("c", fetcher, START);
+        assertEquals(2, cache.size());
+        assertEquals(3, fetcher.mFetches.get());
+
+        //b was the least recently used, a is still there
+        cache.get("a", fetcher, START);
+        assertEquals(3, fetcher.mFetches.get());
+        cache.get("b", fetcher, START);
+        assertEquals(4, fetcher.mFetches.get());
+    }
+
+    @Test
+    public void get_doesNotKeepFailures() {
+        ResultCache<String> cache = new ResultCache<>(4, TTL);
+        CountingFetcher fetcher = new CountingFetcher(null);
+
+        assertNull(cache.get("a", fetcher, START));
+        assertNull(cache.get("a", fetcher, START));
+        assertEquals(2, fetcher.mFetches.get());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void get_concurrentCallersShareOneFetch() throws Exception {
+        ResultCache<String> cache = new ResultCache<>(4, TTL);
+        CountDownLatch release = new CountDownLatch(1);
+        BlockingFetcher leader = new BlockingFetcher("result", release);
+        CountingFetcher follower = new CountingFetcher("other");
+
+        Thread first = startLeader(cache, leader);
+        String[] shared = new String[1];
+        Thread second = startFollower(cache, follower, shared);
+
+        release.countDown();
+        first.join(5000);
+        second.join(5000);
+        assertEquals("result", shared[0]);
+        assertEquals(0, follower.mFetches.get());
+    }
+
+    @Test
+    public void get_fetchesItselfWhenSharedFetchFails() throws Exception {
+        ResultCache<String> cache = new ResultCache<>(4, TTL);
+        CountDownLatch release = new CountDownLatch(1);
+        BlockingFetcher leader = new BlockingFetcher(null, release);
+        CountingFetcher follower = new CountingFetcher("result");
+
+        Thread first = startLeader(cache, leader);
+        String[] shared = new String[1];
+        Thread second = startFollower(cache, follower, shared);
+
+        release.countDown();
+        first.join(5000);
+        second.join(5000);
+        assertEquals("result", shared[0]);
+        assertEquals(1, follower.mFetches.get());
+    }
+
+    @Test
+    public void get_cancelledCallerStopsWaiting() throws Exception {
+        ResultCache<String> cache = new ResultCache<>(4, TTL);
+        CountDownLatch release = new CountDownLatch(1);
+        BlockingFetcher leader = new BlockingFetcher("result", release);
+
+        Thread first = startLeader(cache, leader);
+        CountingFetcher follower = new CountingFetcher("other");
+        follower.mCancelled = true;
+        assertNull(cache.get("a", follower, START));
+
+        release.countDown();
+        first.join(5000);
+    }
+
+    //start a caller fetching "a" and wait until its fetch is in progress
+    private static Thread startLeader(final ResultCache<String> cache, final BlockingFetcher leader)
+            throws InterruptedException {
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                cache.get("a", leader, START);
+            }
+        });
+        thread.start();
+        assertTrue(leader.mStarted.await(5, TimeUnit.SECONDS));
+        return thread;
+    }
+
+    //start a second caller asking for "a" and wait until it is waiting for the fetch in progress,
+    //its result is put in the first element of result
+    private static Thread startFollower(final ResultCache<String> cache, final CountingFetcher follower,
+                                        final String[] result) throws InterruptedException {
+        int sharedBefore = cache.getSharedCount();
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                result[0] = cache.get("a", follower, START);
+            }
+        });
+        thread.start();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (cache.getSharedCount() == sharedBefore && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(sharedBefore + 1, cache.getSharedCount());
+        return thread;
+    }
+
+    private static class CountingFetcher implements ResultCache.Fetcher<String> {
+        private final String mResult;
+        private final AtomicInteger mFetches = new AtomicInteger();
+        private volatile boolean mCancelled;
+
+        CountingFetcher(String result) {
+            mResult = result;
+        }
+
+        @Override
+        public String fetch() {
+            mFetches.incrementAndGet();
+            return mResult;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return mCancelled;
+        }
+    }
+
+    private static class BlockingFetcher implements ResultCache.Fetcher<String> {
+        private final String mResult;
+        private final CountDownLatch mRelease;
+        private final CountDownLatch mStarted = new CountDownLatch(1);
+
+        BlockingFetcher(String result, CountDownLatch release) {
+            mResult = result;
+            mRelease = release;
+        }
+
+        @Override
+        public String fetch() {
+            mStarted.countDown();
+            try {
+                mRelease.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return mResult;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+    }
+}
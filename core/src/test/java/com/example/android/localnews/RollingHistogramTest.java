@@ -0,0 +1,76 @@
+package com.example.android.localnews;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the bucketing, percentiles and rolling windows of the histogram.
+ */
+public class RollingHistogramTest {
+
+    private static final long WINDOW = 1000;
+
+    @Test
+    public void buckets_coverEveryValueInOrder() {
+        int previous = 0;
+        for (long value = 0; value < 1 << 20; value++) {
+            int bucket = RollingHistogram.bucketOf(value);
+            assertTrue(bucket == previous || bucket == previous + 1);
+            assertTrue(RollingHistogram.lowestValueOf(bucket) <= value);
+            previous = bucket;
+        }
+        assertEquals(RollingHistogram.BUCKET_COUNT - 1, RollingHistogram.bucketOf(Long.MAX_VALUE));
+        assertEquals(0, RollingHistogram.bucketOf(-5));
+    }
+
+    @Test
+    public void percentiles_areWithinAnEighth() {
+        RollingHistogram histogram = new RollingHistogram(WINDOW, 4);
+        Random random = new Random(7);
+        long[] values = new long[10000];
+        for (int i = 0; i < values.length; i++) {
+            //latencies from 1 ms to a few seconds, in microseconds
+            values[i] = 1000 + (long) (Math.abs(random.nextGaussian()) * 400000);
+            histogram.record(values[i], 0);
+        }
+        Arrays.sort(values);
+
+        RollingHistogram.Snapshot snapshot = histogram.snapshot(0);
+        assertEquals(values.length, snapshot.getCount());
+        for (double fraction : new double[]{0.5, 0.9, 0.99}) {
+            long expected = values[(int) Math.ceil(fraction * values.length) - 1];
+            assertEquals(expected, snapshot.getPercentile(fraction), expected / 8.0);
+        }
+        assertEquals(values[values.length - 1], snapshot.getMax(), values[values.length - 1] / 8.0);
+    }
+
+    @Test
+    public void oldWindows_rollOff() {
+        RollingHistogram histogram = new RollingHistogram(WINDOW, 3);
+        histogram.record(10, 0);
+        histogram.record(20, WINDOW);
+        histogram.record(30, 2 * WINDOW);
+        assertEquals(3, histogram.snapshot(2 * WINDOW).getCount());
+
+        //the first window is now too old and gets reused
+        histogram.record(40, 3 * WINDOW);
+        RollingHistogram.Snapshot snapshot = histogram.snapshot(3 * WINDOW);
+        assertEquals(3, snapshot.getCount());
+        assertEquals(20, snapshot.getPercentile(0));
+
+        //after a quiet spell nothing is left, even in windows that were never reused
+        assertEquals(0, histogram.snapshot(10 * WINDOW).getCount());
+    }
+
+    @Test
+    public void empty_reportsZero() {
+        RollingHistogram.Snapshot snapshot = new RollingHistogram(WINDOW, 2).snapshot();
+        assertEquals(0, snapshot.getCount());
+        assertEquals(0, snapshot.getPercentile(0.99));
+        assertEquals(0, snapshot.getMax());
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.android.localnews;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks how frames and main thread messages are counted by the scroll metrics.
+ */
+public class ScrollMetricsTest {
+
+    /** The refresh interval of a 60Hz display. */
+    private static final long INTERVAL = TimeUnit.SECONDS.toNanos(1) / 60;
+
+    @Test
+    public void droppedFrames_countsMissedRefreshes() {
+        assertEquals(0, ScrollMetrics.droppedFrames(INTERVAL / 2, INTERVAL));
+        assertEquals(0, ScrollMetrics.droppedFrames(INTERVAL, INTERVAL));
+        assertEquals(1, ScrollMetrics.droppedFrames(INTERVAL + 1, INTERVAL));
+        assertEquals(1, ScrollMetrics.droppedFrames(2 * INTERVAL, INTERVAL));
+        assertEquals(5, ScrollMetrics.droppedFrames(6 * INTERVAL - 1, INTERVAL));
+    }
+
+    @Test
+    public void recordFrame_onlyCountsDroppedFramesOfSlowFrames() {
+        long frames = count(ScrollMetrics.Stage.FRAME);
+        long dropped = count(ScrollMetrics.Stage.DROPPED_FRAMES);
+
+        ScrollMetrics.recordFrame(INTERVAL / 2, INTERVAL);
+        ScrollMetrics.recordFrame(3 * INTERVAL, INTERVAL);
+
+        assertEquals(frames + 2, count(ScrollMetrics.Stage.FRAME));
+        assertEquals(dropped + 1, count(ScrollMetrics.Stage.DROPPED_FRAMES));
+    }
+
+    @Test
+    public void recordFrameInterval_toleratesJitter() {
+        long dropped = count(ScrollMetrics.Stage.DROPPED_FRAMES);
+
+        ScrollMetrics.recordFrameInterval(INTERVAL + INTERVAL / 10, INTERVAL);
+        assertEquals(dropped, count(ScrollMetrics.Stage.DROPPED_FRAMES));
+
+        ScrollMetrics.recordFrameInterval(3 * INTERVAL - INTERVAL / 10, INTERVAL);
+        assertEquals(dropped + 1, count(ScrollMetrics.Stage.DROPPED_FRAMES));
+    }
+
+    @Test
+    public void recordMessage_onlyKeepsBlocks() {
+        long blocks = count(ScrollMetrics.Stage.MAIN_THREAD_BLOCK);
+
+        ScrollMetrics.recordMessage(ScrollMetrics.BLOCK_THRESHOLD_MICROS - 1);
+        assertEquals(blocks, count(ScrollMetrics.Stage.MAIN_THREAD_BLOCK));
+
+        ScrollMetrics.recordMessage(ScrollMetrics.BLOCK_THRESHOLD_MICROS);
+        assertEquals(blocks + 1, count(ScrollMetrics.Stage.MAIN_THREAD_BLOCK));
+    }
+
+    @Test
+    public void export_writesOneLinePerStage() throws Exception {
+        StringBuilder out = new StringBuilder();
+        ScrollMetrics.export(out);
+
+        String[] lines = out.toString().split("\n");
+        assertEquals(ScrollMetrics.Stage.values().length, lines.length);
+        assertTrue(lines[0].startsWith("frame\tus\t"));
+        assertEquals(7, lines[0].split("\t").length);
+    }
+
+    private static long count(ScrollMetrics.Stage stage) {
+        return stage.getHistogram().snapshot().getCount();
+    }
+}
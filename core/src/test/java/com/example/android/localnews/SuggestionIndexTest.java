@@ -0,0 +1,79 @@
+package com.example.android.localnews;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the matching, ranking and memory budget of the suggestion index.
+ */
+public class SuggestionIndexTest {
+
+    private static final long NOW = 1534774325000L;
+    private static final long DAY = 86400000L;
+
+    @Test
+    public void suggest_matchesPrefixIgnoringCaseAndSpacing() {
+        SuggestionIndex index = new SuggestionIndex(1024 * 1024);
+        index.add("Reno", 1, NOW);
+        index.add("Washoe  County", 1, NOW);
+        index.add("Las Vegas", 1, NOW);
+
+        assertEquals(Collections.singletonList("Reno"), index.suggest("RE", 5));
+        assertEquals(Collections.singletonList("Washoe  County"), index.suggest(" washoe c", 5));
+        assertEquals(Collections.<String>emptyList(), index.suggest("sparks", 5));
+    }
+
+    @Test
+    public void suggest_leavesOutTheExactPhrase() {
+        SuggestionIndex index = new SuggestionIndex(1024 * 1024);
+        index.add("Reno", 1, NOW);
+        index.add("Reno Aces", 1, NOW);
+
+        assertEquals(Collections.singletonList("Reno Aces"), index.suggest("reno", 5));
+    }
+
+    @Test
+    public void suggest_ranksByFrequency() {
+        SuggestionIndex index = new SuggestionIndex(1024 * 1024);
+        index.add("Sparks", 1, NOW);
+        index.add("Spanish Springs", 1, NOW);
+        index.add("Spanish Springs", 1, NOW);
+        index.add("Spring Creek", 1, NOW);
+        index.add("Spring Creek", 1, NOW);
+        index.add("Spring Creek", 1, NOW);
+
+        assertEquals(Arrays.asList("Spring Creek", "Spanish Springs", "Sparks"), index.suggest("sp", 5));
+        assertEquals(Arrays.asList("Spring Creek", "Spanish Springs"), index.suggest("sp", 2));
+    }
+
+    @Test
+    public void suggest_ranksRecentAboveStale() {
+        SuggestionIndex index = new SuggestionIndex(1024 * 1024);
+
+        //three sightings four weeks ago have halved four times, below one sighting today
+        for (int i = 0; i < 3; i++) {
+            index.add("Carson City", 1, NOW - 28 * DAY);
+        }
+        index.add("Carlin", 1, NOW);
+
+        assertEquals(Arrays.asList("Carlin", "Carson City"), index.suggest("car", 5));
+    }
+
+    @Test
+    public void add_staysWithinBudgetByDroppingLowestRanked() {
+        long budget = 20 * (SuggestionIndex.ENTRY_OVERHEAD_BYTES + 2 * 2 * 8);
+        SuggestionIndex index = new SuggestionIndex(budget);
+        index.add("keep0000", 100, NOW);
+        for (int i = 0; i < 1000; i++) {
+            index.add(String.format("term%04d", i), 1, NOW);
+        }
+
+        assertTrue(index.getSizeBytes() <= budget);
+        assertTrue(index.size() < 20);
+        assertEquals(Collections.singletonList("keep0000"), index.suggest("keep", 5));
+    }
+}
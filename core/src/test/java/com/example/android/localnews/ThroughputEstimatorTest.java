@@ -0,0 +1,110 @@
+package com.example.android.localnews;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Feeds the throughput estimate made up request timings and checks the page sizes it picks.
+ */
+public class ThroughputEstimatorTest {
+
+    /** The size of an article in a response, about what the Guardian sends with thumbnails. */
+    private static final long ARTICLE_BYTES = 1000;
+
+    /** The page sizes to pick from. */
+    private static final int[] SIZES = {10, 20, 30, 50, 100, 200};
+
+    @Test
+    public void getPageSize_fallsBackUntilMeasured() {
+        ThroughputEstimator estimator = new ThroughputEstimator();
+        assertEquals(25, estimator.getPageSize(1000, SIZES, 25));
+
+        //a body too small to measure throughput by isn't enough either
+        estimator.record(100000, 1000, 2 * ARTICLE_BYTES, 2);
+        assertEquals(25, estimator.getPageSize(1000, SIZES, 25));
+    }
+
+    @Test
+    public void getPageSize_fitsTheBudget() {
+        //200ms to the first byte, then 50 articles in half a second, so 100 articles a second
+        ThroughputEstimator estimator = new ThroughputEstimator();
+        estimator.record(200000, 500000, 50 * ARTICLE_BYTES, 50);
+
+        //80 articles fit the first second, so the largest size holding no more
+        assertEquals(50, estimator.getPageSize(1000, SIZES, 25));
+        assertEquals(200, estimator.getPageSize(4000, SIZES, 25));
+    }
+
+    @Test
+    public void getPageSize_keepsTheSizeWhileTheEstimateDriftsALittle() {
+        //200ms to the first byte, then 65 articles a second, so 52 articles in the first second
+        ThroughputEstimator estimator = new ThroughputEstimator();
+        estimator.record(200000, 800000, 52 * ARTICLE_BYTES, 52);
+        assertEquals(50, estimator.getPageSize(1000, SIZES, 25));
+
+        //a slower request brings the estimate down to 47 articles, which on its own would be 30
+        estimator.record(200000, 800000, 32 * ARTICLE_BYTES, 32);
+        assertEquals(47, 0.8 * estimator.getBytesPerSecond() / ARTICLE_BYTES, 0.001);
+        assertEquals(50, estimator.getPageSize(1000, SIZES, 25));
+        assertEquals(30, restore(estimator).getPageSize(1000, SIZES, 25));
+
+        //a few faster requests, but not so much faster that 100 articles fit by the margin
+        for (int i = 0; i < 3; i++) {
+            estimator.record(200000, 800000, 100 * ARTICLE_BYTES, 100);
+        }
+        assertEquals(50, estimator.getPageSize(1000, SIZES, 25));
+    }
+
+    @Test
+    public void getPageSize_changesOnceTheEstimateHasMovedWellPastTheNextSize() {
+        ThroughputEstimator estimator = new ThroughputEstimator();
+        estimator.record(200000, 800000, 52 * ARTICLE_BYTES, 52);
+        assertEquals(50, estimator.getPageSize(1000, SIZES, 25));
+
+        for (int i = 0; i < 10; i++) {
+            estimator.record(200000, 800000, 20 * ARTICLE_BYTES, 20);
+        }
+        assertEquals(20, estimator.getPageSize(1000, SIZES, 25));
+
+        for (int i = 0; i < 10; i++) {
+            estimator.record(200000, 800000, 200 * ARTICLE_BYTES, 200);
+        }
+        assertEquals(100, estimator.getPageSize(1000, SIZES, 25));
+    }
+
+    @Test
+    public void getPageSize_isSmallestWhenTheFirstByteTakesTheWholeBudget() {
+        ThroughputEstimator estimator = new ThroughputEstimator();
+        estimator.record(1500000, 500000, 50 * ARTICLE_BYTES, 50);
+
+        assertEquals(10, estimator.getPageSize(1000, SIZES, 25));
+    }
+
+    @Test
+    public void record_smoothsTowardsNewTimings() {
+        ThroughputEstimator estimator = new ThroughputEstimator();
+        estimator.record(100000, 1000000, 100 * ARTICLE_BYTES, 100);
+        estimator.record(500000, 4000000, 100 * ARTICLE_BYTES, 100);
+
+        assertEquals(100 + ThroughputEstimator.SMOOTHING * 400, estimator.getTimeToFirstByteMillis(), 0.001);
+        assertEquals(100000 + ThroughputEstimator.SMOOTHING * (25000 - 100000), estimator.getBytesPerSecond(), 0.001);
+        assertEquals(ARTICLE_BYTES, estimator.getBytesPerArticle(), 0.001);
+        assertEquals(2, estimator.getSamples());
+    }
+
+    @Test
+    public void restored_picksTheSamePageSize() {
+        ThroughputEstimator estimator = new ThroughputEstimator();
+        estimator.record(300000, 800000, 40 * ARTICLE_BYTES, 40);
+        ThroughputEstimator restored = restore(estimator);
+
+        assertEquals(estimator.getPageSize(1000, SIZES, 25), restored.getPageSize(1000, SIZES, 25));
+    }
+
+    /** Returns a new estimator made from the saved values of another, without the sizes it chose. */
+    private static ThroughputEstimator restore(ThroughputEstimator estimator) {
+        return new ThroughputEstimator(estimator.getTimeToFirstByteMillis(),
+                estimator.getBytesPerSecond(), estimator.getBytesPerArticle(), estimator.getSamples());
+    }
+}